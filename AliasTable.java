@@ -0,0 +1,110 @@
+/* Class: AliasTable
+ * Date: 10/18/26
+ * Description: Draws one of a fixed list of entries in constant time, each with probability proportional
+ * to its weight, using Vose's alias method. The weights are split into one column per entry, each holding
+ * at most two entries: its own, kept with probability keep[column], and otherwise its alias. A draw picks
+ * a column uniformly and flips one biased coin, so it costs the same however many entries there are and
+ * however lopsided their weights. When every weight is the same the columns need no aliases at all and a
+ * draw is a single array lookup. Immutable once built, so one table can be shared by any number of threads.
+ *
+ * Accessors:
+ * size(), isUniform(), pick(int column, double coin), getEntries()
+ */
+
+public class AliasTable {
+
+  private final int[] entries;  //What can be drawn (for WordFilter, dictionary entry numbers).
+  private final double[] keep;  //The chance a column gives its own entry rather than its alias; null if uniform.
+  private final int[] alias;    //The entry index a column gives otherwise; null if uniform.
+
+
+  //CONSTRUCTORS
+  //Every entry equally likely.
+  public AliasTable(int[] entries) {
+    this.entries = entries;
+    this.keep = null;
+    this.alias = null;
+  }
+  //Entry i drawn with probability weights[i] / (sum of weights). Weights must not be negative, and at
+  //least one must be positive if there are any entries.
+  public AliasTable(int[] entries, double[] weights) {
+    int n = entries.length;
+    if (weights.length != n) {
+      throw new RuntimeException("AliasTable needs one weight per entry.");
+    }
+    double total = 0;
+    for (int i = 0; i < n; i++) {
+      if (weights[i] < 0 || Double.isNaN(weights[i]) || Double.isInfinite(weights[i])) {
+        throw new RuntimeException("Bad weight " + weights[i] + " for AliasTable.");
+      }
+      total += weights[i];
+    }
+    if (n > 0 && total <= 0) {
+      throw new RuntimeException("AliasTable needs at least one positive weight.");
+    }
+    this.entries = entries;
+    this.keep = new double[n];
+    this.alias = new int[n];
+    double[] scaled = new double[n];              //Each weight as a multiple of the average, so a full column is 1.
+    int[] small = new int[n];                     //Columns under 1, as a stack...
+    int[] large = new int[n];                     //...and columns of 1 or more.
+    int smalls = 0;
+    int larges = 0;
+    for (int i = 0; i < n; i++) {
+      scaled[i] = weights[i] * n / total;
+      if (scaled[i] < 1) {
+        small[smalls++] = i;
+      } else {
+        large[larges++] = i;
+      }
+    }
+    while (smalls > 0 && larges > 0) {            //Top up a short column with part of a tall one.
+      int less = small[--smalls];
+      int more = large[--larges];
+      keep[less] = scaled[less];
+      alias[less] = more;
+      scaled[more] = (scaled[more] + scaled[less]) - 1;
+      if (scaled[more] < 1) {
+        small[smalls++] = more;
+      } else {
+        large[larges++] = more;
+      }
+    }
+    while (larges > 0) {                          //Whatever is left is full, give or take rounding.
+      int i = large[--larges];
+      keep[i] = 1;
+      alias[i] = i;
+    }
+    while (smalls > 0) {
+      int i = small[--smalls];
+      keep[i] = 1;
+      alias[i] = i;
+    }
+  }
+
+
+  //ACCESSORS
+  //Number of columns, which is the number of entries.
+  public int size() {
+    return entries.length;
+  }
+
+  //Whether every entry is equally likely.
+  public boolean isUniform() {
+    return keep == null;
+  }
+
+  //The entry drawn for a uniformly random column in 0..size()-1 and a uniformly random coin in [0, 1).
+  public int pick(int column, double coin) {
+    if (keep == null || coin < keep[column]) {
+      return entries[column];
+    }
+    return entries[alias[column]];
+  }
+
+  //Everything that can be drawn. Shared, so do not change it.
+  public int[] getEntries() {
+    return entries;
+  }
+
+}
@@ -0,0 +1,141 @@
+/* Class: BatchLiberator
+ * Date: 10/18/26
+ * Description: Non-interactive batch mode. It autofills every input file in a directory (or every file
+ * matching a glob such as "stories/*.txt") and writes each result next to its source as "Mad <name>",
+ * just like the interactive mode does. The dictionary is loaded once into a Lexicon and shared
+ * read-only by a fixed pool of worker threads, each of which handles one file at a time with its own
+ * LibLibrary. Files that already start with "Mad " are skipped so a second run does not liberate the
+ * output of the first. Given a seed, every file gets its own stream split off from it in file name order,
+ * so the same batch always comes out the same no matter how the threads are scheduled.
+ * Start the JVM with -Dmadlib.metrics=true to get a LibMetrics JSON summary at the end, and with
+ * -Dmadlib.cache=<directory> to keep parsed templates between runs (see TemplateCache).
+ * Usage: java MadLiberator -batch <directory or glob> [threads] [seed]
+ */
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class BatchLiberator {
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("Usage: java MadLiberator -batch <directory or glob> [threads] [seed]");
+      return;
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (args.length > 1) {
+      threads = Integer.parseInt(args[1]);
+    }
+    WordSampler sampler = new WordSampler(Lexicon.getInstance());
+    if (args.length > 2) {
+      sampler = new WordSampler(Lexicon.getInstance(), Long.parseLong(args[2]));
+    }
+
+    List<Path> inputs = findInputs(args[0]);
+    System.out.println("Liberating " + inputs.size() + " files with " + threads + " threads.");
+    long start = System.nanoTime();
+    TemplateCache cache = TemplateCache.fromProperties(Lexicon.getInstance());
+    int done = liberateAll(inputs, Lexicon.getInstance(), sampler, threads, cache);
+    System.out.printf("Finished %d of %d files in %.1f s.%n", done, inputs.size(), (System.nanoTime() - start) / 1e9);
+    if (cache != null) {
+      System.out.println("Template cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses, "
+                         + cache.getEntryCount() + " entries (" + (cache.getDiskSize() >> 10) + " KB).");
+    }
+    if (LibMetrics.getInstance().isEnabled()) {
+      System.out.println(LibMetrics.getInstance().toJson());
+    }
+  }
+
+
+  //List the regular files in a directory, or the files matching a glob in the glob's directory.
+  public static List<Path> findInputs(String pattern) {
+    Path dir = Paths.get(pattern);
+    String glob = "*";
+    if (!Files.isDirectory(dir)) {                         //Not a directory, so treat the last part as a glob.
+      glob = dir.getFileName().toString();
+      dir = dir.getParent();
+      if (dir == null) {
+        dir = Paths.get(".");
+      }
+    }
+    ArrayList<Path> inputs = new ArrayList<Path>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+      for (Path file : files) {
+        if (Files.isRegularFile(file) && !file.getFileName().toString().startsWith("Mad ")) {
+          inputs.add(file);
+        }
+      }
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to list " + pattern + ": " + e.getMessage());
+    }
+    Collections.sort(inputs);
+    return inputs;
+  }
+
+  //Liberate every input on a pool of worker threads sharing one Lexicon. Returns how many succeeded.
+  public static int liberateAll(List<Path> inputs, Lexicon lexicon, WordSampler sampler, int threads) {
+    return liberateAll(inputs, lexicon, sampler, threads, null);
+  }
+
+  //The same, reading and adding to a TemplateCache (which may be null).
+  public static int liberateAll(List<Path> inputs, final Lexicon lexicon, WordSampler sampler, int threads,
+                                final TemplateCache cache) {
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(threads, 1));
+    ArrayList<Future<Path>> results = new ArrayList<Future<Path>>();
+    for (final Path input : inputs) {
+      final WordSampler own = sampler.split();            //Split here, in order, not on the worker threads.
+      results.add(pool.submit(new Callable<Path>() {
+        public Path call() {
+          return liberate(input, lexicon, own, cache);
+        }
+      }));
+    }
+    pool.shutdown();
+
+    int done = 0;
+    for (int i = 0; i < results.size(); i++) {
+      try {
+        results.get(i).get();
+        done++;
+      }
+      catch (ExecutionException e) {                      //One bad file should not stop the batch.
+        System.out.println(inputs.get(i) + ": " + e.getCause().getMessage());
+      }
+      catch (InterruptedException e) {
+        pool.shutdownNow();
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return done;
+  }
+
+  //Autofill a single file and write it out as "Mad <name>". Returns the output file.
+  public static Path liberate(Path input, Lexicon lexicon, WordSampler sampler) {
+    return liberate(input, lexicon, sampler, null);
+  }
+
+  //The same, taking the parsed template from a TemplateCache if one is given.
+  public static Path liberate(Path input, Lexicon lexicon, WordSampler sampler, TemplateCache cache) {
+    LibLibrary madlib;
+    if (cache != null) {
+      madlib = cache.load(input.toString());
+    } else {
+      madlib = new LibLibrary(input.toString(), lexicon);
+    }
+    madlib.setSampler(sampler);
+    madlib.autoComplete(0);
+    Path output = input.resolveSibling("Mad " + input.getFileName());
+    LibRenderer outfile = LibRenderer.toFile(output.toString());
+    try {
+      outfile.writeAll(madlib.getScrubList());
+    }
+    finally {
+      outfile.close();                                  //Even when a write fails, so the batch leaks no files.
+    }
+    return output;
+  }
+
+}
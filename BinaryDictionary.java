@@ -0,0 +1,339 @@
+/* Class: BinaryDictionary
+ * Date: 10/18/26
+ * Description: Read-only view of a dictionary built by DictionaryCompiler. The compiled file is mapped
+ * with FileChannel.map, so loading it costs about as much as opening it, and lookups binary-search the
+ * offset table comparing the mapped bytes against the word directly. No String is made for an entry
+ * unless someone asks for it with getWord(). If the compiled file is missing or older than the text
+ * files, load() compiles the text files in memory instead, so the program still works without it.
+ * Besides the words, the file holds everything about them that can be worked out ahead of time: the
+ * PartOfSpeechTable's hash tables and every entry's inflection (see MorphologyIndex). Those are read
+ * straight out of the file instead of being rebuilt at every start, which used to cost hundreds of ms.
+ *
+ * Parts of speech are numbered the same way as LibLibrary's dic[] arrays: 0 = noun, 1 = adjective, 2 = verb.
+ *
+ * Accessors:
+ * size(int part), find(int part, CharSequence word), getWord(int part, int number), length(int part, int number),
+ * charAt(int part, int number, int index), toArray(int part),
+ * compare(int part, int number, CharSequence word), matches(...), sameWord(...), hash(int part, int number),
+ * hash(CharSequence word), and the case-folding versions of matches, sameWord and hash, find(int part, int otherpart, int othernumber),
+ * startsWith(int part, int number, CharSequence prefix), checksum(), tableCapacity(), tableView(), formsView(int part)
+ */
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+public class BinaryDictionary {
+
+  public static final String DEFAULT_FILE = "dic.bin";
+
+  private ByteBuffer buffer;  //The whole compiled file.
+  private int[] counts;       //Number of words in each part of speech.
+  private int[] tables;       //Where each part of speech's offset table starts in buffer.
+  private int capacity;       //Number of slots in the stored PartOfSpeechTable, or 0 if there is none.
+  private int tablesAt;       //Where the stored PartOfSpeechTable starts: refs, folded refs, masks, folded masks.
+  private int formsAt;        //Where the stored inflections start, one byte per entry, nouns first.
+  private long checksum = -1; //CRC32 of the whole buffer, or -1 until someone asks for it.
+
+
+  //CONSTRUCTORS
+  //Wrap an already compiled dictionary.
+  public BinaryDictionary(ByteBuffer compiled) {
+    buffer = compiled.duplicate();
+    if (buffer.limit() < 8 || buffer.getInt(0) != DictionaryCompiler.MAGIC) {
+      throw new RuntimeException("Not a compiled dictionary.");
+    }
+    if (buffer.getInt(4) != DictionaryCompiler.VERSION) {
+      throw new RuntimeException("Compiled dictionary is version " + buffer.getInt(4) + ", expected "
+                                 + DictionaryCompiler.VERSION + ". Run DictionaryCompiler again.");
+    }
+    int parts = DictionaryCompiler.SOURCES.length;
+    counts = new int[parts];
+    tables = new int[parts];
+    int table = 4 * (3 + parts);
+    for (int i = 0; i < parts; i++) {
+      counts[i] = buffer.getInt(8 + 4 * i);
+      tables[i] = table;
+      table += 4 * (counts[i] + 1);
+    }
+    capacity = buffer.getInt(8 + 4 * parts);
+    tablesAt = DictionaryCompiler.align(start(parts - 1, counts[parts - 1]));  //Just past the last word.
+    formsAt = tablesAt + 10 * capacity;
+  }
+
+  //Map a compiled dictionary file into memory.
+  public static BinaryDictionary map(String filename) {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      return new BinaryDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to map " + filename + ": " + e.getMessage());
+    }
+  }
+
+  //Map DEFAULT_FILE if it is at least as new as every text file and in the current format, otherwise
+  //compile the text files now.
+  public static BinaryDictionary load() {
+    File compiled = new File(DEFAULT_FILE);
+    boolean fresh = compiled.isFile();
+    for (int i = 0; i < DictionaryCompiler.SOURCES.length && fresh; i++) {
+      if (new File(DictionaryCompiler.SOURCES[i]).lastModified() > compiled.lastModified()) {
+        fresh = false;
+      }
+    }
+    if (fresh) {
+      try {
+        return map(DEFAULT_FILE);
+      }
+      catch (RuntimeException e) {                   //Written by an older DictionaryCompiler, most likely.
+      }
+    }
+    return new BinaryDictionary(DictionaryCompiler.compile(DictionaryCompiler.SOURCES));
+  }
+
+
+  //ACCESSORS
+  //How many words are listed for the given part of speech.
+  public int size(int part) {
+    return counts[part];
+  }
+
+  //Binary search the given part of speech for word. Like Arrays.binarySearch, this returns the word's
+  //position if it is found, or (-(insertion point) - 1) if it is not.
+  public int find(int part, CharSequence word) {
+    int low = 0;
+    int high = counts[part] - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(part, mid, word);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  //Binary search one part of speech for an entry of another, the way find(int, CharSequence) does for a word.
+  public int find(int part, int otherpart, int othernumber) {
+    int other = start(otherpart, othernumber);
+    int length = start(otherpart, othernumber + 1) - other;
+    int low = 0;
+    int high = counts[part] - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int start = start(part, mid);
+      int midlength = start(part, mid + 1) - start;
+      int cmp = midlength - length;
+      for (int i = 0; i < Math.min(midlength, length); i++) {
+        int diff = (buffer.get(start + i) & 0xFF) - (buffer.get(other + i) & 0xFF);
+        if (diff != 0) {
+          cmp = diff;
+          break;
+        }
+      }
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  //Make a String out of the given entry. Only call this for words you actually need.
+  public String getWord(int part, int number) {
+    int start = start(part, number);
+    int end = start(part, number + 1);
+    char[] chars = new char[end - start];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) (buffer.get(start + i) & 0xFF);
+    }
+    return new String(chars);
+  }
+
+  //Number of characters in the given entry.
+  public int length(int part, int number) {
+    return start(part, number + 1) - start(part, number);
+  }
+
+  //One character of the given entry.
+  public char charAt(int part, int number, int index) {
+    return (char) (buffer.get(start(part, number) + index) & 0xFF);
+  }
+
+  //Every word of the given part of speech as a String[], for callers that still want the old dic[] arrays.
+  public String[] toArray(int part) {
+    String[] words = new String[counts[part]];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = getWord(part, i);
+    }
+    return words;
+  }
+
+
+  //Compare entry number against word the same way String.compareTo would.
+  public int compare(int part, int number, CharSequence word) {
+    int start = start(part, number);
+    int length = start(part, number + 1) - start;
+    int n = Math.min(length, word.length());
+    for (int i = 0; i < n; i++) {
+      int diff = (buffer.get(start + i) & 0xFF) - word.charAt(i);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return length - word.length();
+  }
+
+  //Whether entry number begins with prefix.
+  public boolean startsWith(int part, int number, CharSequence prefix) {
+    int start = start(part, number);
+    if (start(part, number + 1) - start < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if ((buffer.get(start + i) & 0xFF) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  //Whether an entry is exactly the characters from..to of word, or the same ignoring case if fold is set.
+  public boolean matches(int part, int number, CharSequence word, int from, int to, boolean fold) {
+    int start = start(part, number);
+    if (start(part, number + 1) - start != to - from) {
+      return false;
+    }
+    for (int i = from; i < to; i++) {
+      char a = (char) (buffer.get(start + i - from) & 0xFF);
+      char b = word.charAt(i);
+      if (a != b && (!fold || WordNormalizer.fold(a) != WordNormalizer.fold(b))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  //Whether two entries (possibly from different parts of speech) are the same word.
+  public boolean sameWord(int part, int number, int otherpart, int othernumber) {
+    return sameWord(part, number, otherpart, othernumber, false);
+  }
+
+  //Whether two entries are the same word, ignoring case if fold is set.
+  public boolean sameWord(int part, int number, int otherpart, int othernumber, boolean fold) {
+    int start = start(part, number);
+    int length = start(part, number + 1) - start;
+    int other = start(otherpart, othernumber);
+    if (start(otherpart, othernumber + 1) - other != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char a = (char) (buffer.get(start + i) & 0xFF);
+      char b = (char) (buffer.get(other + i) & 0xFF);
+      if (a != b && (!fold || WordNormalizer.fold(a) != WordNormalizer.fold(b))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  //Hash of an entry. Always equal to hash(CharSequence) of the same word.
+  public int hash(int part, int number) {
+    return hash(part, number, false);
+  }
+
+  //Hash of an entry, of its case-folded characters if fold is set.
+  public int hash(int part, int number, boolean fold) {
+    int start = start(part, number);
+    int end = start(part, number + 1);
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      char c = (char) (buffer.get(i) & 0xFF);
+      h = 31 * h + (fold ? WordNormalizer.fold(c) : c);
+    }
+    return mix(h);
+  }
+
+  //Hash of a word, computed straight from its characters.
+  public static int hash(CharSequence word) {
+    return hash(word, 0, word.length(), false);
+  }
+
+  //Hash of the characters from..to of word, case-folded if fold is set. Matches hash(part, number, fold).
+  public static int hash(CharSequence word, int from, int to, boolean fold) {
+    int h = 0;
+    for (int i = from; i < to; i++) {
+      char c = word.charAt(i);
+      h = 31 * h + (fold ? WordNormalizer.fold(c) : c);
+    }
+    return mix(h);
+  }
+
+
+  //CRC32 of everything in the compiled dictionary: the words, the tables and the inflections. Any change
+  //to any of them changes it. Worked out the first time it is asked for (a millisecond or so) and kept.
+  public synchronized long checksum() {
+    if (checksum < 0) {
+      CRC32 crc = new CRC32();
+      ByteBuffer whole = buffer.duplicate();
+      whole.position(0);
+      crc.update(whole);
+      checksum = crc.getValue();
+    }
+    return checksum;
+  }
+
+  //Number of slots of the PartOfSpeechTable stored in the file, or 0 if it was compiled without one.
+  public int tableCapacity() {
+    return capacity;
+  }
+
+  //The stored PartOfSpeechTable, as a view of this dictionary's buffer (not a copy): tableCapacity() ints
+  //of exact refs, as many of case-folded refs, then as many bytes of exact masks and of case-folded masks.
+  public ByteBuffer tableView() {
+    return section(tablesAt, 10 * capacity);
+  }
+
+  //The stored inflection of every entry of a part of speech, one byte each, as a view of this dictionary's
+  //buffer, or null if it was compiled without them.
+  public ByteBuffer formsView(int part) {
+    if (capacity == 0) {
+      return null;
+    }
+    int at = formsAt;
+    for (int i = 0; i < part; i++) {
+      at += counts[i];
+    }
+    return section(at, counts[part]);
+  }
+
+
+  //length bytes of buffer from at, as a buffer of their own numbered from 0.
+  private ByteBuffer section(int at, int length) {
+    ByteBuffer section = buffer.duplicate();
+    section.position(at);
+    section.limit(at + length);
+    return section.slice();
+  }
+
+  //Where entry number of the given part of speech starts in buffer.
+  private int start(int part, int number) {
+    return buffer.getInt(tables[part] + 4 * number);
+  }
+
+  //Spread the bits of a String-style hash so that the low bits are usable as a table slot.
+  private static int mix(int h) {
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+}
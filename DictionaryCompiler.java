@@ -0,0 +1,169 @@
+/* Class: DictionaryCompiler
+ * Date: 10/18/26
+ * Description: Converts the three dictionary text files (nouns, adjectives, verbs) into one sorted binary
+ * file that BinaryDictionary can map straight into memory. Each list is read to the end (so editing a
+ * dictionary no longer means changing a hard-coded array size). The text files are kept sorted and free
+ * of duplicates ("java DictionaryCompiler -sort" rewrites them that way), so reading them is one pass
+ * that only checks the order, and only sorts if someone has edited a file out of order. Everything the
+ * program would otherwise work out at start-up is worked out here and stored too. The layout of the file is:
+ *
+ *   int magic, int version, int count[3], int capacity
+ *   int offset[count[0] + 1], int offset[count[1] + 1], int offset[count[2] + 1]
+ *   the bytes of every word, one Latin-1 byte per character, in sorted order
+ *   (padding to a multiple of 4)
+ *   int refs[capacity], int foldedRefs[capacity], byte masks[capacity], byte foldedMasks[capacity]
+ *   byte form[count[0] + count[1] + count[2]]
+ *
+ * Offsets are absolute positions in the file, and word i of a list runs from offset[i] to offset[i + 1].
+ * The refs and masks are the PartOfSpeechTable's tables, and form is each entry's MorphologyIndex inflection.
+ * Usage: java DictionaryCompiler [output file]
+ *        java DictionaryCompiler -sort
+ */
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class DictionaryCompiler {
+
+  public static final int MAGIC = 0x4D4C4443;  //"MLDC"
+  public static final int VERSION = 2;
+  public static final String[] SOURCES = {"dic_noun.txt", "dic_adj.txt", "dic_verb.txt"};
+
+  public static void main(String[] args) {
+    if (args.length > 0 && args[0].equals("-sort")) {
+      for (int i = 0; i < SOURCES.length; i++) {
+        writeSorted(SOURCES[i]);
+      }
+      return;
+    }
+    String outputfilename = BinaryDictionary.DEFAULT_FILE;
+    if (args.length > 0) {
+      outputfilename = args[0];
+    }
+    ByteBuffer compiled = compile(SOURCES);
+    write(compiled, outputfilename);
+    System.out.println("Wrote " + compiled.limit() + " bytes to " + outputfilename);
+  }
+
+
+  //Read every source file and lay them out in the binary format described above.
+  public static ByteBuffer compile(String[] sources) {
+    String[][] lists = new String[sources.length][];
+    int total = 0;                                          //Bytes needed for the words themselves.
+    int entries = 0;                                        //Number of offset slots needed.
+    for (int i = 0; i < sources.length; i++) {
+      lists[i] = readSorted(sources[i]);
+      entries += lists[i].length + 1;
+      for (int j = 0; j < lists[i].length; j++) {
+        total += lists[i][j].length();
+      }
+    }
+
+    int header = 4 * (3 + sources.length);
+    int words = entries - sources.length;
+    int tablesAt = align(header + 4 * entries + total);
+    int capacity = PartOfSpeechTable.capacityFor(words);
+    ByteBuffer out = ByteBuffer.allocateDirect(tablesAt + 10 * capacity + words);  //Off the heap, for when load() compiles.
+    out.putInt(MAGIC);
+    out.putInt(VERSION);
+    for (int i = 0; i < lists.length; i++) {
+      out.putInt(lists[i].length);
+    }
+    out.putInt(0);                                          //No tables yet; filled in below.
+
+    int data = header + 4 * entries;                        //Where the first word starts.
+    for (int i = 0; i < lists.length; i++) {                //Offset tables first...
+      for (int j = 0; j < lists[i].length; j++) {
+        out.putInt(data);
+        data += lists[i][j].length();
+      }
+      out.putInt(data);                                     //...with one extra slot marking the end of the list.
+    }
+    for (int i = 0; i < lists.length; i++) {                //...then the words.
+      for (int j = 0; j < lists[i].length; j++) {
+        String word = lists[i][j];
+        for (int k = 0; k < word.length(); k++) {
+          char c = word.charAt(k);
+          if (c > 0xFF) {
+            throw new RuntimeException("\"" + word + "\" in " + sources[i] + " is not a Latin-1 word.");
+          }
+          out.put((byte) c);
+        }
+      }
+    }
+
+    BinaryDictionary dictionary = new BinaryDictionary(out);   //Just the words so far, so the tables get built...
+    PartOfSpeechTable tags = new PartOfSpeechTable(dictionary);
+    MorphologyIndex morphology = new MorphologyIndex(dictionary, tags);
+    out.putInt(4 * (2 + sources.length), capacity);           //...and then stored after them.
+    tags.writeTo(out, tablesAt);
+    out.position(tablesAt + 10 * capacity);
+    for (int i = 0; i < lists.length; i++) {
+      out.put(morphology.getForms(i));
+    }
+    out.flip();
+    return out;
+  }
+
+  //Round a position up to the next multiple of 4, where the int tables start.
+  public static int align(int position) {
+    return (position + 3) & ~3;
+  }
+
+  //Write a compiled dictionary out to the named file.
+  public static void write(ByteBuffer compiled, String outputfilename) {
+    try (FileChannel channel = FileChannel.open(Paths.get(outputfilename), StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer copy = compiled.duplicate();
+      while (copy.hasRemaining()) {
+        channel.write(copy);
+      }
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to write " + outputfilename + ": " + e.getMessage());
+    }
+  }
+
+  //Read a dictionary text file, one entry per line, and return its entries sorted with duplicates removed.
+  //The files are kept sorted, so this normally just checks the order as it reads; only a file that has been
+  //edited out of order gets sorted here.
+  public static String[] readSorted(String filename) {
+    ArrayList<String> words = new ArrayList<String>();
+    FastInput f = new FastInput(filename);
+    boolean sorted = true;
+    String line;
+    while ((line = f.nextLine()) != null) {               //null at the end of the file.
+      line = line.trim();
+      if (line.length() > 0) {
+        if (!words.isEmpty() && words.get(words.size() - 1).compareTo(line) >= 0) {
+          sorted = false;                                 //Out of order, or a duplicate.
+        }
+        words.add(line);
+      }
+    }
+    f.close();
+    if (sorted) {
+      return words.toArray(new String[words.size()]);
+    }
+    TreeSet<String> set = new TreeSet<String>(words);     //Sorts and drops duplicates in one go.
+    return set.toArray(new String[set.size()]);
+  }
+
+  //Rewrite a dictionary text file sorted and without duplicates, so readSorted never has to sort it.
+  public static void writeSorted(String filename) {
+    String[] words = readSorted(filename);
+    try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(filename)))) {
+      for (int i = 0; i < words.length; i++) {
+        out.println(words[i]);
+      }
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to write " + filename + ": " + e.getMessage());
+    }
+    System.out.println("Sorted " + words.length + " words into " + filename);
+  }
+
+}
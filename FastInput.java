@@ -0,0 +1,382 @@
+/* Class: FastInput
+ * Date: 10/18/26
+ * Description: Reads words, numbers and lines from a file or the console, as a faster stand-in for
+ * SimpleInput. SimpleInput builds a new StringTokenizer for every line, parses numbers by boxing them into
+ * Doubles and catching NumberFormatExceptions, and reports the end of the input by throwing, which callers
+ * have to catch to stop reading. FastInput reads into one reusable char[] buffer and hands tokens back as
+ * a CharSequence slice of that buffer, which is only good until the next call. nextWord() makes a String
+ * of it for callers that want to keep it. Numbers are parsed straight out of the buffer without creating
+ * anything. The end of the input is a return value, not an exception: null for tokens and lines, and a
+ * caller-chosen value for numbers. Tokens are separated by spaces, tabs, form feeds and line breaks, the
+ * same as SimpleInput (StringTokenizer's default " \t\n\r\f").
+ *
+ * Mutators:
+ * nextToken(), nextWord(), nextLine(), nextInt(int atEnd), nextLong(long atEnd), nextDouble(double atEnd),
+ * discardLine(), close()
+ *
+ * Accessors:
+ * stdin(), isDelimiter(char c)
+ */
+
+import java.io.*;
+
+public class FastInput {
+
+  public static final int BUFFER_SIZE = 8192;
+
+  private static FastInput stdin;                 //Shared, so two readers never split the console's input between them.
+
+  private Reader in;
+  private char[] buffer = new char[BUFFER_SIZE];
+  private int position;                           //Next unread character of buffer.
+  private int length;                             //Number of characters in buffer.
+  private boolean ended;                          //Whether in has nothing more to give.
+  private boolean midLine;                        //Whether a token has been read from a line whose end is still unread.
+  private Slice slice = new Slice();              //The last token, as a view into buffer.
+  private long whole;                             //The last number parsed, as a truncated whole number...
+  private double number;                          //...and as a double.
+
+
+  //CONSTRUCTORS
+  //Read from the named file.
+  public FastInput(String file) {
+    if (file == null) {
+      throw new RuntimeException("null file passed to FastInput.");
+    }
+    File details = new File(file);
+    if (!details.isFile()) {
+      throw new RuntimeException(file + " does not exist or is not a regular file.");
+    }
+    if (!details.canRead()) {
+      throw new RuntimeException(file + " exists but is unreadable.");
+    }
+    try {
+      in = new FileReader(details);
+    }
+    catch (FileNotFoundException e) {
+      throw new RuntimeException("Failed to open " + file + ": " + e.getMessage());
+    }
+  }
+  //Read from any Reader. It does its own buffering, so there is no need to wrap the Reader in a BufferedReader.
+  public FastInput(Reader in) {
+    this.in = in;
+  }
+
+  //The reader for System.in. Everyone who reads the console should share this one, since each FastInput
+  //buffers ahead and would otherwise keep characters another one was waiting for.
+  public static synchronized FastInput stdin() {
+    if (stdin == null) {
+      stdin = new FastInput(new InputStreamReader(System.in));
+    }
+    return stdin;
+  }
+
+
+  //MUTATORS
+  //The next token, or null at the end of the input. The slice is only good until the next call.
+  public CharSequence nextToken() {
+    while (true) {
+      if (position == length && !fill(0)) {
+        return null;
+      }
+      char c = buffer[position];
+      if (c == '\n') {
+        midLine = false;
+        position++;
+      } else if (isDelimiter(c) || c == '\r') {
+        position++;
+      } else {
+        break;
+      }
+    }
+    int start = position;
+    while (true) {
+      if (position == length) {                   //The token runs past the buffer, so keep what we have of it and read more.
+        int kept = position - start;
+        if (!fill(kept)) {
+          position = kept;
+          start = 0;
+          break;
+        }
+        start = 0;
+        position = kept;
+        continue;
+      }
+      char c = buffer[position];
+      if (isDelimiter(c) || c == '\n' || c == '\r') {
+        break;
+      }
+      position++;
+    }
+    midLine = true;
+    slice.set(start, position);
+    return slice;
+  }
+
+  //The next token as a String, or null at the end of the input.
+  public String nextWord() {
+    CharSequence token = nextToken();
+    if (token == null) {
+      return null;
+    }
+    return token.toString();
+  }
+
+  //The next whole line, or null at the end of the input. Like SimpleInput, the rest of a line that tokens
+  //have already been read from is thrown away first.
+  public String nextLine() {
+    if (midLine) {
+      discardLine();
+    }
+    StringBuilder line = null;
+    while (true) {
+      if (position == length && !fill(0)) {
+        if (line == null) {
+          return null;
+        }
+        break;
+      }
+      int start = position;
+      while (position < length && buffer[position] != '\n') {
+        position++;
+      }
+      int end = position;
+      if (line == null) {
+        line = new StringBuilder(end - start);
+      }
+      line.append(buffer, start, end - start);
+      if (position < length) {                    //Found the end of the line.
+        position++;
+        break;
+      }
+    }
+    if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+      line.setLength(line.length() - 1);
+    }
+    return line.toString();
+  }
+
+  //Skip past the end of the current line.
+  public void discardLine() {
+    midLine = false;
+    while (true) {
+      if (position == length && !fill(0)) {
+        return;
+      }
+      while (position < length) {
+        if (buffer[position++] == '\n') {
+          return;
+        }
+      }
+    }
+  }
+
+  //The next number, truncated to an int, skipping anything that is not a number. atEnd at the end of the input.
+  public int nextInt(int atEnd) {
+    if (!nextNumber()) {
+      return atEnd;
+    }
+    return (int) whole;
+  }
+
+  //The next number, truncated to a long, skipping anything that is not a number. atEnd at the end of the input.
+  public long nextLong(long atEnd) {
+    if (!nextNumber()) {
+      return atEnd;
+    }
+    return whole;
+  }
+
+  //The next number, skipping anything that is not a number. atEnd at the end of the input.
+  public double nextDouble(double atEnd) {
+    if (!nextNumber()) {
+      return atEnd;
+    }
+    return number;
+  }
+
+  public void close() {
+    try {
+      in.close();
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+
+  //ACCESSORS
+  //Whether a character separates tokens within a line.
+  public static boolean isDelimiter(char c) {
+    return c == ' ' || c == '\t' || c == '\f';
+  }
+
+
+  //Read tokens until one is a number, and leave it in whole and number. Returns false at the end of the input.
+  private boolean nextNumber() {
+    CharSequence token;
+    while ((token = nextToken()) != null) {
+      if (parse(slice.start, slice.end)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  //Parse buffer[start..end) as a number like 42, -3.5, 6.02e23 or 1.5d3 (SimpleInput's 'd' exponents too).
+  //Up to 18 significant digits scaled by a power of ten that is exact in a double are worked out directly;
+  //anything longer is rare enough to hand to Double.parseDouble.
+  private boolean parse(int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+      negative = buffer[i] == '-';
+      i++;
+    }
+    long digits = 0;
+    int significant = 0;
+    int scale = 0;                                //Power of ten to apply to digits.
+    long integer = 0;                             //The part before the point, for truncation.
+    boolean anyDigit = false;
+    boolean point = false;
+    boolean overflow = false;
+    for (; i < end; i++) {
+      char c = buffer[i];
+      if (c >= '0' && c <= '9') {
+        anyDigit = true;
+        if (!point) {
+          if (integer > (Long.MAX_VALUE - (c - '0')) / 10) {
+            overflow = true;
+          } else {
+            integer = integer * 10 + (c - '0');
+          }
+        }
+        if (significant < 18) {
+          if (digits != 0 || c != '0') {
+            significant++;
+          }
+          digits = digits * 10 + (c - '0');
+          if (point) {
+            scale--;
+          }
+        } else {
+          overflow = true;
+          if (!point) {
+            scale++;
+          }
+        }
+      } else if (c == '.' && !point) {
+        point = true;
+      } else {
+        break;
+      }
+    }
+    if (!anyDigit) {
+      return false;
+    }
+    if (i < end) {                                //Only an exponent may follow.
+      char c = buffer[i];
+      if (c != 'e' && c != 'E' && c != 'd' && c != 'D') {
+        return false;
+      }
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+        negativeExponent = buffer[i] == '-';
+        i++;
+      }
+      if (i == end) {
+        return false;
+      }
+      int exponent = 0;
+      for (; i < end; i++) {
+        c = buffer[i];
+        if (c < '0' || c > '9') {
+          return false;
+        }
+        exponent = Math.min(exponent * 10 + (c - '0'), 100000);
+      }
+      scale += negativeExponent ? -exponent : exponent;
+      overflow = true;                            //The whole part is no longer just integer, so truncate number instead.
+    }
+    if (digits < (1L << 53) && scale >= -22 && scale <= 22) {  //Both exact in a double, so one step is exact too.
+      number = scale < 0 ? digits / POWERS[-scale] : digits * POWERS[scale];
+    } else {
+      String text = new String(buffer, start, end - start).replace('d', 'e').replace('D', 'e');
+      number = Double.parseDouble(text);
+    }
+    if (negative) {
+      number = -number;
+    }
+    whole = overflow ? (long) number : (negative ? -integer : integer);
+    return true;
+  }
+
+  //Read more of the input into buffer, keeping the last kept characters (a token cut off by the end of the
+  //buffer) at its front. Returns false if there was nothing more to read.
+  private boolean fill(int kept) {
+    if (kept > 0) {
+      if (kept == buffer.length) {                //One token fills the whole buffer, so make room for more.
+        char[] bigger = new char[buffer.length * 2];
+        System.arraycopy(buffer, length - kept, bigger, 0, kept);
+        buffer = bigger;
+      } else {
+        System.arraycopy(buffer, length - kept, buffer, 0, kept);
+      }
+    }
+    position = kept;
+    length = kept;
+    if (ended) {
+      return false;
+    }
+    try {
+      int read;
+      do {
+        read = in.read(buffer, kept, buffer.length - kept);
+      } while (read == 0);
+      if (read < 0) {
+        ended = true;
+        return false;
+      }
+      length = kept + read;
+      return true;
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+
+  private static final double[] POWERS = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  //A token, as a window onto buffer. Reused for every token.
+  private class Slice implements CharSequence {
+    private int start;
+    private int end;
+
+    void set(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    public int length() {
+      return end - start;
+    }
+
+    public char charAt(int index) {
+      return buffer[start + index];
+    }
+
+    public CharSequence subSequence(int from, int to) {
+      return new String(buffer, start + from, to - from);
+    }
+
+    public String toString() {
+      return new String(buffer, start, end - start);
+    }
+  }
+
+}
@@ -0,0 +1,71 @@
+/* Class: IntList
+ * Date: 10/18/26
+ * Description: A small growable list of primitive ints. LibLibrary uses it to collect the positions
+ * of each word in scrublist without boxing every position into an Integer or rebuilding an int[] for
+ * every word. The backing array doubles whenever it fills up, so adding a position is O(1) on average.
+ *
+ * Mutators:
+ * add(int value), clear()
+ *
+ * Accessors:
+ * get(int number), size(), toArray()
+ */
+
+import java.util.*;
+
+public class IntList {
+
+  private int[] values;
+  private int size;
+
+
+  //CONSTRUCTORS
+  public IntList() {
+    this(4);                                  //Most words only show up a handful of times.
+  }
+  //Start with room for the given number of values.
+  public IntList(int capacity) {
+    values = new int[Math.max(capacity, 1)];
+  }
+  //Wrap an array that is already full of values. The array is used as is, not copied.
+  public IntList(int[] full) {
+    values = full.length > 0 ? full : new int[1];
+    size = full.length;
+  }
+
+
+  //MUTATORS
+  //Append a value to the end of the list, growing the backing array if it is full.
+  public void add(int value) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    values[size++] = value;
+  }
+
+  //Forget every value, but keep the backing array for reuse.
+  public void clear() {
+    size = 0;
+  }
+
+
+  //ACCESSORS
+  //Return the value stored at the given slot.
+  public int get(int number) {
+    if (number >= size) {
+      throw new IndexOutOfBoundsException(number + " is past the end of the list (" + size + ").");
+    }
+    return values[number];
+  }
+
+  //How many values have been added.
+  public int size() {
+    return size;
+  }
+
+  //Copy the values into an int[] of exactly the right length.
+  public int[] toArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+}
@@ -0,0 +1,128 @@
+/* Class: Lexicon
+ * Date: 10/18/26
+ * Description: The read-only half of LibLibrary: the compiled dictionary of nouns, adjectives and verbs,
+ * the part of speech table built over it, and the inflection of every word (see MorphologyIndex). Nothing
+ * in here changes after it is constructed, so one Lexicon can be shared by any number of LibLibrary
+ * objects, including ones being used on different threads at the same time. getInstance() loads the
+ * shared copy the first time it is asked for and hands the same one out for the rest of the run, so a
+ * process only ever holds one dictionary.
+ * Loading is cheap: the compiled file is mapped, its stored tables are used where they lie rather than
+ * copied, and the per-part-of-speech word pools WordSampler draws from are only gathered for the parts a
+ * run actually draws (see MorphologyIndex). Everything but those pools stays off the Java heap: the words,
+ * the part of speech tables and the inflections are all read straight out of the mapped file (or a direct
+ * buffer, when the file had to be compiled at load time), so the heap holds a few small objects for the
+ * dictionary no matter how many documents use it.
+ *
+ * Parts of speech are numbered 0 = noun, 1 = adjective, 2 = verb, like LibLibrary's old dic[] arrays.
+ *
+ * Accessors:
+ * getInstance(), getDictionary(), getTags(), getMorphology(), getSuggester(), getFilter(), lookup(CharSequence word), formOf(CharSequence word, int part), find(int part, CharSequence word),
+ * size(int part), getWord(int part, int number), toArrays()
+ */
+
+public class Lexicon {
+
+  private final BinaryDictionary dictionary;
+  private final PartOfSpeechTable tags;
+  private final MorphologyIndex morphology;
+  private final WordSuggester suggester;
+  private WordFilter filter;                    //What autofill may draw, from the madlib.* properties, or null...
+  private volatile boolean filterRead;          //...once getFilter() has read them.
+
+
+  //CONSTRUCTORS
+  public Lexicon(BinaryDictionary dictionary) {
+    this.dictionary = dictionary;
+    this.tags = new PartOfSpeechTable(dictionary);
+    this.morphology = new MorphologyIndex(dictionary, tags);
+    this.suggester = new WordSuggester(this);
+  }
+
+  //Load a new, unshared copy of the dictionary. Most callers want getInstance() instead.
+  public static Lexicon load() {
+    long start = LibMetrics.start();
+    Lexicon lexicon = new Lexicon(BinaryDictionary.load());
+    LibMetrics.stop(LibMetrics.LOAD, start);
+    return lexicon;
+  }
+
+  //The JVM loads Shared (and so the dictionary) the first time getInstance() touches it, exactly once,
+  //even if several threads get there at the same moment.
+  private static class Shared {
+    static final Lexicon INSTANCE = load();
+  }
+
+  //The one Lexicon shared by the whole process.
+  public static Lexicon getInstance() {
+    return Shared.INSTANCE;
+  }
+
+
+  //ACCESSORS
+  public BinaryDictionary getDictionary() {
+    return dictionary;
+  }
+
+  public PartOfSpeechTable getTags() {
+    return tags;
+  }
+
+  public MorphologyIndex getMorphology() {
+    return morphology;
+  }
+
+  public WordSuggester getSuggester() {
+    return suggester;
+  }
+
+  //The filter every WordSampler over this lexicon starts with, or null if none was configured. The
+  //properties (and any files they name) are read the first time this is called, not when the Lexicon is
+  //made, so a bad weights or exclude file fails the call that needs it with an ordinary RuntimeException
+  //instead of failing getInstance() for the rest of the run. After a failure the next call tries again.
+  public WordFilter getFilter() {
+    if (!filterRead) {
+      synchronized (this) {
+        if (!filterRead) {
+          filter = WordFilter.fromProperties(this);
+          filterRead = true;                    //Publishes filter to every thread that sees it set.
+        }
+      }
+    }
+    return filter;
+  }
+
+  //The parts of speech of word as a PartOfSpeechTable bitmask, or 0 if it is not a dictionary word.
+  public int lookup(CharSequence word) {
+    return tags.lookup(word);
+  }
+
+  //The inflection of word as the given part of speech, one of the MorphologyIndex forms.
+  public int formOf(CharSequence word, int part) {
+    return morphology.formOf(word, part);
+  }
+
+  //Binary search one part of speech for word, with the same result as Arrays.binarySearch.
+  public int find(int part, CharSequence word) {
+    return dictionary.find(part, word);
+  }
+
+  //How many words are listed for a part of speech.
+  public int size(int part) {
+    return dictionary.size(part);
+  }
+
+  //A single word of a part of speech.
+  public String getWord(int part, int number) {
+    return dictionary.getWord(part, number);
+  }
+
+  //A fresh String copy of the whole dictionary, in the old dic[][] layout.
+  public String[][] toArrays() {
+    String[][] dic = new String[3][];
+    for (int i = 0; i < 3; i++) {
+      dic[i] = dictionary.toArray(i);
+    }
+    return dic;
+  }
+
+}
@@ -0,0 +1,367 @@
+/* Class: LibBenchmark
+ * Date: 10/18/26
+ * Description: A timing harness for the hot paths of LibLibrary and MadLiberator. With no file named, it
+ * writes synthetic inputs of 1 KB, 1 MB and 50 MB (a fixed mix of dictionary words, filler words and
+ * punctuation, so every run sees the same text) and times, at each size:
+ *
+ *   load      - loading the dictionary (Lexicon.load(), what setDictionaryArray used to do per document)
+ *   scrubList - tokenizing the file
+ *   setIndex  - building the index (setIndexByScan, the old getLibSize/hasDuplicates path, at 1 KB only,
+ *               and setIndexParallel, forced onto the common ForkJoinPool at every size)
+ *   isItInDic - tagging every token
+ *   autoFill  - autocompleting every slot with a seeded sampler (the fresh token list and index each round
+ *               needs are set up outside the timed part)
+ *   render    - writing the result out (the old string concatenation too, at 1 KB only)
+ *
+ * Each benchmark runs a warm-up round and then the given number of timed rounds, and the best time is
+ * kept. Every run compares itself against a fixed baseline, bench_results.csv, and flags anything more than
+ * 10% slower, so regressions show up locally before they are committed. The baseline is only written by
+ * the first run (when there is none) or when -save is given, so a string of small slowdowns cannot creep
+ * in by each run becoming the next one's baseline; save a new one deliberately after a change that is
+ * meant to move the numbers. This is a plain timing loop, not JMH: the tree has no build tool to pull it in.
+ * With a file named, it just checks that setIndex, setIndex on the ForkJoinPool and setIndexByScan agree
+ * on it and times them.
+ *
+ * Usage: java LibBenchmark [-sizes 1k,1m,50m] [-rounds 5] [-baseline bench_results.csv] [-save]
+ *        java LibBenchmark <input file> [rounds]
+ */
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class LibBenchmark {
+
+  public static final double REGRESSION = 1.10;  //How much slower than the baseline counts as a regression.
+
+  private static int rounds = 5;
+  private static LinkedHashMap<String, Double> results = new LinkedHashMap<String, Double>();
+  private static long sink;                         //Keeps the JIT from throwing benchmark work away.
+
+  public static void main(String[] args) {
+    String sizes = "1k,1m,50m";
+    String baseline = "bench_results.csv";
+    boolean save = false;                         //Replace the baseline with this run.
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-sizes")) {
+        sizes = args[++i];
+      } else if (args[i].equals("-rounds")) {
+        rounds = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-baseline")) {
+        baseline = args[++i];
+      } else if (args[i].equals("-save")) {
+        save = true;
+      } else {
+        if (i + 1 < args.length) {
+          rounds = Integer.parseInt(args[i + 1]);
+        }
+        compareIndexes(args[i]);
+        return;
+      }
+    }
+
+    final Lexicon lexicon = Lexicon.getInstance();
+    time("load", new Runnable() {
+      public void run() {
+        sink += Lexicon.load().getTags().size();
+      }
+    });
+    String[] list = sizes.split(",");
+    for (int i = 0; i < list.length; i++) {
+      benchmarkSize(lexicon, list[i].trim().toLowerCase());
+    }
+    boolean first = !new File(baseline).isFile();
+    compareWithBaseline(baseline);
+    if (save || first) {
+      saveResults(baseline);
+      System.out.println("Saved this run as " + baseline + ".");
+    }
+  }
+
+
+  //Time every path on one synthetic input of the given size ("1k", "1m", "50m" and so on).
+  public static void benchmarkSize(final Lexicon lexicon, final String size) {
+    final File input = synthesize(lexicon, parseSize(size));
+    final LibLibrary madlib = new LibLibrary(lexicon);
+    madlib.setSeed(1);
+    final boolean small = parseSize(size) <= 4096;
+    System.out.println("== " + size + " (" + input.length() + " bytes)");
+
+    time("scrubList/" + size, new Runnable() {
+      public void run() {
+        madlib.scrubList(input.getPath());
+        sink += madlib.getScrubIds().length;        //Not getScrubList(), which makes a copy.
+      }
+    });
+    time("setIndex/" + size, new Runnable() {
+      public void run() {
+        madlib.setIndex();
+        sink += madlib.getIndex().size();
+      }
+    });
+    time("setIndexParallel/" + size, new Runnable() {
+      public void run() {
+        madlib.setIndex(ForkJoinPool.commonPool());
+        sink += madlib.getIndex().size();
+      }
+    });
+    if (small) {
+      time("setIndexByScan/" + size, new Runnable() {
+        public void run() {
+          madlib.setIndexByScan();
+          sink += madlib.getIndex().size();
+        }
+      });
+    }
+    final String[] tokens = madlib.getScrubList();   //getScrubList() copies, so not inside the timed part.
+    time("isItInDic/" + size, new Runnable() {
+      public void run() {
+        for (int i = 0; i < tokens.length; i++) {
+          sink += madlib.isItInDic(tokens[i]);
+        }
+      }
+    });
+
+    time("autoFill/" + size, new Runnable() {
+      public void run() {
+        madlib.setScrubList(tokens.clone());        //autoComplete writes into scrublist, so start fresh.
+        madlib.setIndex();
+      }
+    }, new Runnable() {
+      public void run() {
+        sink += madlib.autoComplete(0);
+      }
+    });
+
+    final String[] filled = madlib.getScrubList();
+    final File output = new File(input.getPath() + ".out");
+    time("render/" + size, new Runnable() {
+      public void run() {
+        LibRenderer outfile = LibRenderer.toFile(output.getPath());
+        outfile.writeAll(filled);
+        outfile.close();
+        sink += output.length();
+      }
+    });
+    if (small) {
+      time("renderByConcat/" + size, new Runnable() {
+        public void run() {
+          sink += concatenate(filled).length();
+        }
+      });
+    }
+    input.delete();
+    output.delete();
+  }
+
+  //Run a benchmark once to warm up, then time it for the given number of rounds and record the best.
+  public static void time(String name, Runnable benchmark) {
+    time(name, null, benchmark);
+  }
+
+  //The same, running setup (if not null) untimed before every round.
+  public static void time(String name, Runnable setup, Runnable benchmark) {
+    if (setup != null) {
+      setup.run();
+    }
+    benchmark.run();
+    long[] times = new long[rounds];
+    for (int r = 0; r < rounds; r++) {
+      if (setup != null) {
+        setup.run();
+      }
+      long start = System.nanoTime();
+      benchmark.run();
+      times[r] = System.nanoTime() - start;
+    }
+    results.put(name, report(name, times));
+  }
+
+  //Write a temporary file of roughly the given number of bytes, always the same text for the same size.
+  public static File synthesize(Lexicon lexicon, long bytes) {
+    String[] filler = {"the", "a", "of", "and", "to", "in", "was", "it", "he", "she", "42", "Mr."};
+    String[] marks = {",", ".", ";", ":", "(", ")"};
+    Random generator = new Random(bytes);
+    try {
+      File file = File.createTempFile("libbench", ".txt");
+      Writer out = new BufferedWriter(new FileWriter(file));
+      long written = 0;
+      int column = 0;
+      while (written < bytes) {
+        String word;
+        int kind = generator.nextInt(10);
+        if (kind < 4) {                             //40% dictionary words, from a limited vocabulary so words repeat.
+          int part = generator.nextInt(3);
+          word = lexicon.getWord(part, generator.nextInt(Math.min(2000, lexicon.size(part))));
+        } else if (kind < 9) {
+          word = filler[generator.nextInt(filler.length)];
+        } else {
+          word = marks[generator.nextInt(marks.length)];
+        }
+        column += word.length() + 1;
+        String gap = " ";
+        if (column > 72) {
+          gap = "\n";
+          column = 0;
+        }
+        out.write(word);
+        out.write(gap);
+        written += word.length() + 1;
+      }
+      out.close();
+      return file;
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to write benchmark input: " + e.getMessage());
+    }
+  }
+
+  //"1k" -> 1024, "1m" -> 1048576, "50m" -> 52428800, plain numbers are bytes.
+  public static long parseSize(String size) {
+    long unit = 1;
+    if (size.endsWith("k")) {
+      unit = 1024;
+    } else if (size.endsWith("m")) {
+      unit = 1024 * 1024;
+    }
+    if (unit > 1) {
+      size = size.substring(0, size.length() - 1);
+    }
+    return Long.parseLong(size) * unit;
+  }
+
+  //The output assembly MadLiberator.main used before LibRenderer, kept for comparison.
+  public static String concatenate(String[] the_list) {
+    String output_text = the_list[0];
+    for (int i = 1; i < the_list.length; i++) {
+      if (LibRenderer.attachesToPrevious(the_list[i])) {
+        output_text = output_text + the_list[i];
+      } else {
+        output_text = output_text + " " + the_list[i];
+      }
+    }
+    return output_text;
+  }
+
+  //Compare this run with the saved baseline, flagging anything that got noticeably slower.
+  public static void compareWithBaseline(String baseline) {
+    File file = new File(baseline);
+    if (!file.isFile()) {
+      System.out.println("No baseline yet; this run will become " + baseline + ".");
+      return;
+    }
+    System.out.println("== compared with " + baseline);
+    int regressions = 0;
+    FastInput in = new FastInput(baseline);
+    String line;
+    while ((line = in.nextLine()) != null) {         //null at the end of the file.
+      String[] fields = line.split(",");
+      Double now = results.get(fields[0]);
+      if (now != null) {
+        double before = Double.parseDouble(fields[1]);
+        String flag = "";
+        if (now > before * REGRESSION) {
+          flag = "   REGRESSION";
+          regressions++;
+        }
+        System.out.printf("%-26s %10.3f ms -> %10.3f ms (%+.1f%%)%s%n", fields[0], before, now, 100 * (now - before) / before, flag);
+      }
+    }
+    in.close();
+    System.out.println(regressions + " regression(s).");
+  }
+
+  //Save the best time of every benchmark as "name,milliseconds" lines.
+  public static void saveResults(String baseline) {
+    try {
+      PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(baseline)));
+      for (Map.Entry<String, Double> entry : results.entrySet()) {
+        out.println(entry.getKey() + "," + entry.getValue());
+      }
+      out.close();
+    }
+    catch (IOException e) {
+      System.out.println("Failed to save " + baseline + ": " + e.getMessage());
+    }
+  }
+
+  //Check that the single-pass index and the original scanning index agree on a file, then time both.
+  public static void compareIndexes(String inputfilename) {
+    LibLibrary madlib = new LibLibrary(inputfilename);            //Loads the dictionary and scrubs the file once.
+    System.out.println(madlib.getScrubList().length + " tokens in " + inputfilename);
+
+    madlib.setIndex();
+    HashMap<String, int[]> fast = madlib.getIndex();
+    madlib.setIndex(ForkJoinPool.commonPool());
+    HashMap<String, int[]> parallel = madlib.getIndex();
+    madlib.setIndexByScan();
+    HashMap<String, int[]> slow = madlib.getIndex();
+    if (!sameIndex(fast, slow) || !sameIndex(parallel, slow)) {
+      System.out.println("MISMATCH: setIndex and setIndexByScan disagree!");
+      return;
+    }
+
+    long[] times = new long[rounds];
+    for (int r = 0; r < rounds; r++) {
+      long start = System.nanoTime();
+      madlib.setIndex();
+      times[r] = System.nanoTime() - start;
+    }
+    report("setIndex", times);
+    for (int r = 0; r < rounds; r++) {
+      long start = System.nanoTime();
+      madlib.setIndex(ForkJoinPool.commonPool());
+      times[r] = System.nanoTime() - start;
+    }
+    report("setIndexParallel", times);
+    for (int r = 0; r < rounds; r++) {
+      long start = System.nanoTime();
+      madlib.setIndexByScan();
+      times[r] = System.nanoTime() - start;
+    }
+    report("setIndexByScan", times);
+  }
+
+  //The old path lists positions in a different order, and lists each spelling of a word ("Dog", "dog")
+  //on its own where the new one gives them all one shared array, so compare each shared array against the
+  //old arrays of all its spellings put together, sorted.
+  public static boolean sameIndex(HashMap<String, int[]> a, HashMap<String, int[]> b) {
+    if (!a.keySet().equals(b.keySet())) {
+      return false;
+    }
+    IdentityHashMap<int[], IntList> merged = new IdentityHashMap<int[], IntList>();
+    for (String word : a.keySet()) {
+      IntList all = merged.get(a.get(word));
+      if (all == null) {
+        all = new IntList();
+        merged.put(a.get(word), all);
+      }
+      int[] y = b.get(word);
+      for (int i = 0; i < y.length; i++) {
+        all.add(y[i]);
+      }
+    }
+    for (int[] positions : merged.keySet()) {
+      int[] x = Arrays.copyOf(positions, positions.length);
+      int[] y = merged.get(positions).toArray();
+      Arrays.sort(x);
+      Arrays.sort(y);
+      if (!Arrays.equals(x, y)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  //Print the best and average of a set of timings, in milliseconds, and return the best.
+  public static double report(String name, long[] times) {
+    long best = Long.MAX_VALUE;
+    long total = 0;
+    for (int i = 0; i < times.length; i++) {
+      best = Math.min(best, times[i]);
+      total += times[i];
+    }
+    System.out.printf("%-26s best %10.3f ms   avg %10.3f ms%n", name, best / 1e6, total / 1e6 / times.length);
+    return best / 1e6;
+  }
+}
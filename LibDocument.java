@@ -0,0 +1,275 @@
+/* Class: LibDocument
+ * Date: 10/18/26
+ * Description: A mad lib that remembers how it was made. LibLibrary overwrites scrublist and deletes index
+ * keys as words are replaced, so once a run is done there is no going back without parsing the file
+ * again. A LibDocument keeps the original tokens, every slot (a dictionary word of the source, its part
+ * of speech and all of its positions) and the word currently filling each slot. Any slot, every slot of
+ * one part of speech, or all slots can be re-rolled, which only touches the positions of those slots, and
+ * render() writes out the current result. Slots are numbered in the order their words first appear.
+ * Tokens are kept as IDs into the document's SymbolTable, the same as LibLibrary keeps them. A filled
+ * position holds -(slot + 1) instead, so fills never grow the table, and only render() turns IDs into words.
+ * Spellings of one word ("Dog", "dog!") are one slot, and each position shows the fill with the capitals
+ * and punctuation of its own source token (see WordNormalizer).
+ * The rendered tokens are kept between calls. A fill, clear or re-roll only marks its slot dirty, and the
+ * next render() or getTokens() re-resolves just the positions of the dirty slots before writing the kept
+ * tokens out, so re-rolling a few slots of a long document does not redo every token.
+ *
+ * Mutators:
+ * fill(int slot, String word), reroll(int slot), rerollPart(int part), rerollAll(), clear(int slot),
+ * setSampler(WordSampler sampler)
+ *
+ * Accessors:
+ * getSlotCount(), getSlot(String word), getSlotWord(int slot), getSlotPart(int slot), getSlotForm(int slot),
+ * getPositions(int slot),
+ * getFill(int slot), getSlotsOfPart(int part), getOriginal(), getTokens(), render(LibRenderer out), toTemplate(), toString()
+ */
+
+import java.io.*;
+import java.util.*;
+
+public class LibDocument {
+
+  private final SymbolTable symbols;          //Words of the source. Only read, never added to.
+  private final int[] original;               //The tokens as they were read (IDs into symbols). Never changed.
+  private final int[] current;                //The same, but -(slot + 1) where a slot has been filled.
+  private final String[] slotWords;           //The source word of each slot.
+  private final int[] slotParts;              //Its part of speech (0 = noun, 1 = adjective, 2 = verb).
+  private final int[] slotForms;              //Its inflection (see MorphologyIndex).
+  private final int[][] slotPositions;        //Where it appears in original.
+  private final String[] fills;               //What fills it now, or null if it still shows the source word.
+  private final HashMap<String, Integer> slots = new HashMap<String, Integer>();
+  private final IntList[] slotsByPart = {new IntList(), new IntList(), new IntList()};
+  private String[] rendered;                  //Every token as last rendered, or null until the first render.
+  private final boolean[] dirty;              //Slots changed since then...
+  private final IntList dirtySlots = new IntList();  //...and the same slots as a list.
+  private final Lexicon lexicon;
+  private WordSampler sampler;                //Made on the first re-roll, unless one was set.
+
+
+  //CONSTRUCTORS
+  //Build a document from tokens (IDs into symbols) and the index LibLibrary.setIndex() made for them.
+  public LibDocument(int[] tokens, SymbolTable symbols, HashMap<String, int[]> index, Lexicon lexicon) {
+    this(tokens, symbols, index, null, null, lexicon);
+  }
+  //The same, with each slot's part of speech and inflection already known (see TemplateCache), in slot order.
+  public LibDocument(int[] tokens, SymbolTable symbols, HashMap<String, int[]> index, int[] knownParts,
+                     int[] knownForms, Lexicon lexicon) {
+    this.symbols = symbols;
+    original = tokens.clone();
+    current = tokens.clone();
+    int n = index.size();                                  //At least as many words as slots.
+    String[] words = new String[n];
+    int[] parts = new int[n];
+    int[] forms = new int[n];
+    int[][] positionsOf = new int[n][];
+    IdentityHashMap<int[], Integer> bySpelling = new IdentityHashMap<int[], Integer>();  //Spellings of a word share an array.
+    for (int i = 0; i < original.length; i++) {            //Walk the tokens so slots are numbered in order.
+      String word = symbols.get(original[i]);
+      int[] positions = index.get(word);
+      if (positions != null && !slots.containsKey(word)) {
+        Integer slot = bySpelling.get(positions);
+        if (slot == null) {                                //A new word, rather than a new spelling of one.
+          slot = bySpelling.size();
+          bySpelling.put(positions, slot);
+          words[slot] = word;
+          if (knownParts != null) {
+            parts[slot] = knownParts[slot];
+            forms[slot] = knownForms[slot];
+          } else {
+            parts[slot] = PartOfSpeechTable.firstPart(lexicon.lookup(word));
+            forms[slot] = lexicon.formOf(word, parts[slot]);
+          }
+          positionsOf[slot] = positions.clone();
+          slotsByPart[parts[slot]].add(slot);
+        }
+        slots.put(word, slot);
+      }
+    }
+    n = bySpelling.size();
+    slotWords = Arrays.copyOf(words, n);
+    slotParts = Arrays.copyOf(parts, n);
+    slotForms = Arrays.copyOf(forms, n);
+    slotPositions = Arrays.copyOf(positionsOf, n);
+    fills = new String[n];
+    dirty = new boolean[n];
+    this.lexicon = lexicon;
+  }
+
+  //Read, tokenize and index a file.
+  public static LibDocument load(String inputfilename, Lexicon lexicon) {
+    LibLibrary madlib = new LibLibrary(inputfilename, lexicon);
+    return madlib.getDocument();
+  }
+
+
+  //MUTATORS
+  //Use a particular sampler for re-rolls, e.g. a seeded one.
+  public void setSampler(WordSampler sampler) {
+    this.sampler = sampler;
+  }
+
+  //Put a chosen word into a slot, everywhere the slot's word appears.
+  public void fill(int slot, String word) {
+    fills[slot] = word;
+    int[] positions = slotPositions[slot];
+    for (int i = 0; i < positions.length; i++) {
+      current[positions[i]] = -(slot + 1);
+    }
+    markDirty(slot);
+  }
+
+  //Put the source word back into a slot.
+  public void clear(int slot) {
+    fills[slot] = null;
+    int[] positions = slotPositions[slot];
+    for (int i = 0; i < positions.length; i++) {
+      current[positions[i]] = original[positions[i]];
+    }
+    markDirty(slot);
+  }
+
+  //Fill a slot with a new random word of the same part of speech and inflection, and return it.
+  public String reroll(int slot) {
+    String word = sampler().drawForm(slotParts[slot], slotForms[slot]);
+    fill(slot, word);
+    return word;
+  }
+
+  //Re-roll every slot of one part of speech. Returns how many slots changed.
+  public int rerollPart(int part) {
+    IntList list = slotsByPart[part];
+    for (int i = 0; i < list.size(); i++) {
+      reroll(list.get(i));
+    }
+    return list.size();
+  }
+
+  //Re-roll every slot. Returns how many slots changed.
+  public int rerollAll() {
+    for (int slot = 0; slot < slotWords.length; slot++) {
+      reroll(slot);
+    }
+    return slotWords.length;
+  }
+
+
+  //ACCESSORS
+  public int getSlotCount() {
+    return slotWords.length;
+  }
+
+  //The slot of a source word (any of its spellings), or -1 if it is not one.
+  public int getSlot(String word) {
+    Integer slot = slots.get(word);
+    if (slot == null) {
+      return -1;
+    }
+    return slot;
+  }
+
+  public String getSlotWord(int slot) {
+    return slotWords[slot];
+  }
+
+  public int getSlotPart(int slot) {
+    return slotParts[slot];
+  }
+
+  public int getSlotForm(int slot) {
+    return slotForms[slot];
+  }
+
+  public int[] getPositions(int slot) {
+    return slotPositions[slot].clone();
+  }
+
+  //The word filling a slot, or null if it still shows the source word.
+  public String getFill(int slot) {
+    return fills[slot];
+  }
+
+  //The slots of one part of speech, in order.
+  public int[] getSlotsOfPart(int part) {
+    return slotsByPart[part].toArray();
+  }
+
+  //The tokens as they were read.
+  public String[] getOriginal() {
+    return symbols.resolve(original);
+  }
+
+  //The tokens as they are now.
+  public String[] getTokens() {
+    return update().clone();
+  }
+
+  //Write the current result out, re-resolving only the positions of slots changed since the last time.
+  public void render(LibRenderer out) {
+    String[] tokens = update();
+    for (int i = 0; i < tokens.length; i++) {
+      out.write(tokens[i]);
+    }
+  }
+
+  //An unchangeable copy of the source and its slots, for making many fills of it at once (see LibTemplate).
+  public LibTemplate toTemplate() {
+    return new LibTemplate(original, symbols, slotWords, slotParts, slotForms, slotPositions);
+  }
+
+  public String toString() {
+    StringWriter buffer = new StringWriter();
+    LibRenderer renderer = new LibRenderer(buffer);
+    render(renderer);
+    renderer.close();
+    return buffer.toString();
+  }
+
+
+  //The sampler for re-rolls, made the first time one is needed.
+  private WordSampler sampler() {
+    if (sampler == null) {
+      sampler = new WordSampler(lexicon);
+    }
+    return sampler;
+  }
+
+  //Note that a slot's positions need resolving again.
+  private void markDirty(int slot) {
+    if (!dirty[slot]) {
+      dirty[slot] = true;
+      dirtySlots.add(slot);
+    }
+  }
+
+  //Bring the rendered tokens up to date: all of them the first time, afterwards only the dirty slots' positions.
+  private String[] update() {
+    if (rendered == null) {
+      rendered = new String[current.length];
+      for (int i = 0; i < rendered.length; i++) {
+        rendered[i] = getToken(i);
+      }
+    } else {
+      for (int k = 0; k < dirtySlots.size(); k++) {
+        int[] positions = slotPositions[dirtySlots.get(k)];
+        for (int i = 0; i < positions.length; i++) {
+          rendered[positions[i]] = getToken(positions[i]);
+        }
+      }
+    }
+    for (int k = 0; k < dirtySlots.size(); k++) {
+      dirty[dirtySlots.get(k)] = false;
+    }
+    dirtySlots.clear();
+    return rendered;
+  }
+
+  //The word at a position right now.
+  private String getToken(int position) {
+    int id = current[position];
+    if (id < 0) {
+      return WordNormalizer.decorate(fills[-id - 1], symbols.get(original[position]));
+    }
+    return symbols.get(id);
+  }
+
+}
@@ -3,40 +3,65 @@
  * Date: 4/18/11
  * Description: This is a helper class that does most of the heavy lifting for the MadLiberator client.
  * It takes a string input (the name of a file), and reads the file's text into an array, keeping track of
- * punctuation. It then compares each word with an array of arrays that lists known nouns, adjectives, and
- * verbs. Using this info, it creates a HashMap linking the critical words to an array of indices that map
- * to scrublist's use of each word. This can be used by the client to replace the words of the source text
+ * punctuation. It then compares each word with a shared dictionary (see Lexicon) that lists known
+ * nouns, adjectives, and verbs. Using this info, it creates a HashMap linking the critical words to an array of indices that map
+ * to scrublist's use of each word. scrublist itself is kept compact, as an int ID per token into a SymbolTable
+ * of the document's distinct words, and only turned back into Strings when asked for. This can be used by the client to replace the words of the source text
  * while keeping continuity of equivalent words. There are several other methods to allow for flexibility 
- * on the client side.
+ * on the client side. Loading, tokenizing, indexing, lookups and replacements are all counted by LibMetrics.
  * 
  * Mutators:
- * setDictionaryArray(), scrubList(String inputfilename), setIndex(), setInput(),
+ * setDictionaryArray(), setLexicon(Lexicon lexicon), setSeed(long seed), setSampler(WordSampler sampler),
+ * setVerbose(boolean verbose), scrubList(String inputfilename), setScrubList(String[] list), setDocument(int[] list, SymbolTable symbols, HashMap index), setIndex(), setIndex(ForkJoinPool pool), setIndexByScan(), setInput(),
  * setNextWord(String next_word, String keyword), autoComplete(int number), 
  * 
  * Accessors:
- * getIndex(), getDic(), getScrubList(), getNextVal(int number), compareWords(String word, int index_number), 
- * findArrayIndexes(String word), getLibSize(), hasDuplicates(int number), isItInDic(String location), 
+ * getIndex(), getDic(), getLexicon(), getScrubList(), getScrubIds(), getSymbols(), getDocument(), getTemplate(), getNextVal(int number), compareWords(String word, int index_number),
+ * suggestWords(String word, int index_number, int limit),
+ * getTags(String word),
+ * findArrayIndexes(String word), getLibSize(), getLibSizeByScan(), hasDuplicates(int number), isItInDic(String location), 
  * inNounArray(String location), inAdjArray(String location), inVerbArray(String location)
  */
 
 import java.util.*;
+import java.util.concurrent.*;
 
 public class LibLibrary {
   
-  private String[] scrublist;
-  private String[][] dic = new String[3][];
+  public static final int PARALLEL_TOKENS = 1 << 20;  //Documents this long are indexed in parallel.
+
+  private int[] scrublist;               //The document, as IDs into symbols.
+  private SymbolTable symbols;           //Every distinct word of the document (and its replacements).
+  private Lexicon lexicon;               //The shared, read-only dictionary. Everything else here belongs to this document.
+  private WordSampler sampler;           //Picks the random words for autoFill; made on first use if none is given.
   private HashMap<String, int[]> index;
   
   
   //CONSTRUCTORS
   public LibLibrary(String inputfilename) {
-    this.dic[0] = new String[90962];  //Array of nouns (with number of entries in the document).
-    this.dic[1] = new String[28479];  //Array of adjectives (same).
-    this.dic[2] = new String[30800];  //Array of verbs (same).
     setDictionaryArray();             //sets up the dictionary.
     scrubList(inputfilename);         //Sets up the array that will eventually be the PrintStream source.
     setIndex();                       //Sets up array of words to be replaced, and their associated part of speech.
   }
+  //Use a dictionary that has already been loaded, e.g. one shared by a batch of documents.
+  public LibLibrary(String inputfilename, Lexicon lexicon) {
+    setLexicon(lexicon);
+    scrubList(inputfilename);
+    setIndex();
+  }
+  //An empty document using the given dictionary. Fill it with scrubList() or setScrubList(), then setIndex().
+  public LibLibrary(Lexicon lexicon) {
+    setLexicon(lexicon);
+    symbols = new SymbolTable();
+    scrublist = new int[0];
+    index = new HashMap<String, int[]>();
+  }
+  //The same, drawing autoFill's words from a sampler that already exists (a server's shared one, say),
+  //so no sampler is set up for this document.
+  public LibLibrary(Lexicon lexicon, WordSampler sampler) {
+    this(lexicon);
+    setSampler(sampler);
+  }
   //What to do with an empty argument.
   public LibLibrary() {
     setInput();
@@ -44,54 +69,92 @@ public class LibLibrary {
   
 
   //MUTATORS
-  //Populate the dictionary array from the appropriate text files.
+  //Attach the dictionary. It is only loaded the first time any LibLibrary asks for it (see Lexicon),
+  //after that every document shares the same copy.
   public void setDictionaryArray(){
-    String[] name = {"dic_noun.txt", "dic_adj.txt", "dic_verb.txt"};
-    
-    for (int i = 0; i < 3; i++) {                //For each of the 3 dic[] arrays...
-      SimpleInput f = new SimpleInput(name[i]);  
-      for (int j = 0; j < dic[i].length; j++) {  //...Insert the next entry from the source file.
-        dic[i][j] = f.nextLine();                //Each line is a new entry to the dictionary array.
-      }
-      Arrays.sort(dic[i]);                       //Just in case the source file is out of order.
-    }
+    setLexicon(Lexicon.getInstance());
+  }
+
+  //Use a particular loaded dictionary instead of the shared one.
+  public void setLexicon(Lexicon lexicon){
+    this.lexicon = lexicon;
+    this.sampler = null;                                             //Made when first needed, for this lexicon.
+  }
+
+  //Make autoFill pick the same words every time for the same seed.
+  public void setSeed(long seed){
+    boolean verbose = sampler != null && sampler.isVerbose();
+    sampler = new WordSampler(lexicon, seed);
+    sampler.setVerbose(verbose);
+  }
+
+  //Use a particular sampler for autoFill, e.g. one split off from a shared seeded sampler.
+  public void setSampler(WordSampler sampler){
+    this.sampler = sampler;
+  }
+
+  //Whether autoFill prints each word it selects. Off by default.
+  public void setVerbose(boolean verbose){
+    sampler().setVerbose(verbose);
   }
   
   
   //Takes the same input file and scrubs it of punctuation marks so that the words can be properly analyzed.
+  //The Tokenizer reads the file a chunk at a time and splits , . ; : ( ) off into tokens of their own.
   public void scrubList(String inputfilename){
-    SimpleInput infile = new SimpleInput(inputfilename);
-    String text;                                    //Initialize text to read source.
-    boolean done = false;                           //Set up test condition to break away when done reading.                                
-    while(!done) {
-      try {                                         //Fencepost problem: must try/catch twice to make sure...
-        text = infile.nextWord();                   //We don't have an empty infile, and then read til done.
-        while(!done) {
-          try{
-            text = text + " " + infile.nextWord();  //Separates each word with a space.
-          }
-          catch (RuntimeException f) {
-            done = true;                            //At this point, we are done reading.
-            text = text.replace(",", " , ");        //Modify the text to add space between words and punctuation.
-            text = text.replace(".", " . ");
-            text = text.replace(";", " ; ");
-            text = text.replace(":", " : ");
-            text = text.replace("(", " ( ");
-            text = text.replace(")", " ) ");
-          }
-          scrublist = text.split("\\s+");           //So set scrublist as an array using the string .split method.
-          }                                         //"\\s+" Splits between whitespaces.
-      }
-      catch (RuntimeException e) {                  //If we hit a runtime exception, then the file was empty to start with.
-        done = true;
-      }
-    } 
+    long start = LibMetrics.start();
+    symbols = new SymbolTable();
+    scrublist = Tokenizer.tokenize(inputfilename, symbols);
+    LibMetrics.stop(LibMetrics.TOKENIZE, start);
+    LibMetrics.document(scrublist.length);
   } 
      
 
-  //Create an index array to find all the list items that will be scrubbed and replaced (might need optimizing or tweaking).
+  //Use an already tokenized list as the document. Call setIndex() afterwards.
+  public void setScrubList(String[] list){
+    symbols = new SymbolTable();
+    scrublist = new int[list.length];
+    for (int i = 0; i < list.length; i++){
+      scrublist[i] = symbols.intern(list[i]);
+    }
+    LibMetrics.document(list.length);
+  }
+
+
+  //Use a document that has already been tokenized and indexed, e.g. one read back from a TemplateCache.
+  //index must map each spelling of a word to the same positions array, as setIndex() does.
+  public void setDocument(int[] list, SymbolTable symbols, HashMap<String, int[]> index){
+    this.scrublist = list;
+    this.symbols = symbols;
+    this.index = index;
+    LibMetrics.document(list.length);
+  }
+
+
+  //Create an index that maps each word to be scrubbed and replaced to all of its locations in scrublist.
+  //Documents of PARALLEL_TOKENS tokens or more are indexed on the common ForkJoinPool, with the same result.
   public void setIndex(){
-    int n = getLibSize();                                        //Determine the number of unique words we are working with.
+    if (scrublist.length >= PARALLEL_TOKENS && ForkJoinPool.getCommonPoolParallelism() > 1){
+      setIndex(ForkJoinPool.commonPool());
+      return;
+    }
+    long start = LibMetrics.start();
+    index = new PositionIndex(scrublist, symbols, this).toHashMap();  //One pass over scrublist, see PositionIndex.
+    LibMetrics.stop(LibMetrics.INDEX, start);
+  }
+
+  //Create the same index, tagging and collecting positions a chunk of scrublist per task on the given pool.
+  public void setIndex(ForkJoinPool pool){
+    long start = LibMetrics.start();
+    index = new PositionIndex(scrublist, symbols, this, pool).toHashMap();
+    LibMetrics.stop(LibMetrics.INDEX, start);
+  }
+
+  //The original index builder, kept so LibBenchmark can compare it against setIndex(). It rescans and
+  //re-sorts scrublist for every word, so avoid it on anything bigger than a page or two.
+  public void setIndexByScan(){
+    String[] scrublist = getScrubList();
+    int n = getLibSizeByScan();                                  //Determine the number of unique words we are working with.
     HashMap<String, int[]> hm = new HashMap<String, int[]> (n);  //Make map linking each word to an array of its locations.
     for (int i = 0; i < scrublist.length; i++){                  //For each term in scrublist...
       if (isItInDic(scrublist[i]) > 0) {                         //If it is in the dictionary of parts of speech...
@@ -103,57 +166,52 @@ public class LibLibrary {
   }
         
   
-  //Sets manual input mode, for a freestyle mad lib experience.
+  //Sets manual input mode, for a freestyle mad lib experience. Reads the name of a file from the console,
+  //then every word of that file.
   public void setInput(){
-    SimpleInput keyboard = new SimpleInput();        //Get manual text input.
+    FastInput keyboard = FastInput.stdin();          //Get manual text input.
     String inlib = keyboard.nextLine();
-    SimpleInput textcount = new SimpleInput(inlib);  //One input stream to count, to set up an array of the proper size.
-    SimpleInput text = new SimpleInput(inlib);       //One input stream to transcribe the info to the array. 
-    String nextword;                                 //Initialize string to read the text.
-    
-    boolean done = false;                            //Sets up condition to end while loop.
-    int count = 0;                                   //Sets up condition to end while loop, and counts the size of the manual input text.
-    
-    while(!done){                                    //This is the counting loop.
-      try{
-        nextword = textcount.nextWord();
-        count ++;
+    ArrayList<String> usertext = new ArrayList<String>();
+    if (inlib != null) {
+      FastInput text = new FastInput(inlib);         //One pass: the end of the file is a null, not an exception, so no counting pass.
+      String nextword;
+      while ((nextword = text.nextWord()) != null) {
+        usertext.add(nextword);
       }
-      catch (RuntimeException e) {
-        done = true;
-      }    
-      done = false;                                  //Prime done again for the next loop.
+      text.close();
     }
-    
-    String[] usertext = new String[count];           //Initialize array to store the text.
-
-    while(!done){                                    //This is the transcription loop.
-      try{
-        for (int i = 0; i < count; i++) {
-          nextword = text.nextWord();
-          usertext[i] = nextword;
-        }
-      }
-      catch (RuntimeException e) {
-        done = true;
-      }
-    }
-    this.scrublist = usertext;                       //Puts the data into list.
+    setScrubList(usertext.toArray(new String[usertext.size()]));  //Puts the data into list.
   }
   
 
-
-  //Replace index word with the argument. If argument is empty, return false so the client can set up autofill
+  //Replace index word with the argument. If argument is empty, return false so the client can set up autofill.
+  //Every spelling of the word that shares its positions is replaced, and each copy takes on the capitals and
+  //punctuation of the token it replaces (see WordNormalizer), so "Dog!" and "dog" become "Cat!" and "cat".
   public boolean setNextWord(String next_word, String keyword){  
     boolean success;                              //Return whether replacement worked.
     int[] array;                                  //Declare array to get the locations of all words that will change.
 
       array = index.get(keyword);                 //Set array to equal the value of the HashMap keyword.
       try {                                       //This is for error checking, though ideally not needed.
+        IntList spellings = new IntList();        //Each spelling of the word found at those locations...
+        IntList fills = new IntList();            //...and the ID of the replacement dressed up to match it.
         for (int i = 0; i < array.length; i++){   //For each term in the array (each location in scrublist)...
-          scrublist[array[i]] = next_word;        //Replace the word with next_word.                  
+          int old = scrublist[array[i]];
+          int k = 0;
+          while (k < spellings.size() && spellings.get(k) != old){
+            k++;
+          }
+          if (k == spellings.size()){
+            spellings.add(old);
+            fills.add(symbols.intern(WordNormalizer.decorate(next_word, symbols.get(old))));
+          }
+          scrublist[array[i]] = fills.get(k);     //Replace the word with next_word.                  
+        }
+        index.remove(keyword);                    //When all words have been replaced, get rid of the keyword from the HashMap...
+        for (int k = 0; k < spellings.size(); k++){
+          index.remove(symbols.get(spellings.get(k)));  //...along with its other spellings.
         }
-        index.remove(keyword);                    //When all words have been replaced, get rid of the keyword from the HashMap.
+        LibMetrics.replaced(array.length);
         success = true;
       }
       catch (NullPointerException e){             //Before removing the HashMap keyword, this was a problem.
@@ -165,20 +223,44 @@ public class LibLibrary {
   
   //Calls for next word's index in scrublist, looks up random word in proper dictionary, and fills index location with that word
   public String autoFill(int number){
-    int dic_size;
     String replacement = "";                                         //Declare string, and initialize to empty string in case not found.
-    if (index.containsKey(scrublist[number])){                       //If the HashMap stores the given term...
-      int where = isItInDic(scrublist[number]) - 1;                  //Get the of proper dic index.
-        dic_size = dic[where].length;          
-        
-        Random generator = new Random();                             //Use random number method.
-        int choice = generator.nextInt(dic_size);                    //Pick an element from the proper dic[]
-        
-        System.out.println("Selected word: " + dic[where][choice]);  //Show what was selected.
-        replacement = dic[where][choice];                            //replace the word.
+    String word = symbols.get(scrublist[number]);
+    if (index.containsKey(word)){                                    //If the HashMap stores the given term...
+      int where = isItInDic(word) - 1;                               //Get the of proper dic index.
+      replacement = sampler().drawForm(where, lexicon.formOf(word, where)); //Pick an element from the proper part of speech and inflection.
     }    
     return replacement;
   }
+
+  //Autofill every word still in the index that appears at or after the given position, in the order the
+  //words first appear, so a seeded run always gives the same result. Returns how many words were replaced.
+  public int autoComplete(int number){
+    ArrayList<String> keys = new ArrayList<String>();
+    IntList parts = new IntList();
+    IntList forms = new IntList();
+    boolean[] seen = new boolean[symbols.size()];
+    IdentityHashMap<int[], Boolean> taken = new IdentityHashMap<int[], Boolean>();  //Spellings of one word share an array.
+    for (int i = number; i < scrublist.length; i++){                 //Collect each remaining slot once...
+      int id = scrublist[i];
+      if (seen[id]){
+        continue;
+      }
+      seen[id] = true;
+      String word = symbols.get(id);
+      int[] positions = index.get(word);
+      if (positions != null && taken.put(positions, Boolean.TRUE) == null){
+        keys.add(word);
+        int part = isItInDic(word) - 1;
+        parts.add(part);
+        forms.add(lexicon.formOf(word, part));                       //Plurals for plurals, past tense for past tense...
+      }
+    }
+    String[] replacements = sampler().drawAll(parts.toArray(), forms.toArray());  //...draw all their words in one go...
+    for (int i = 0; i < replacements.length; i++){
+      setNextWord(replacements[i], keys.get(i));                     //...and put them in place.
+    }
+    return replacements.length;
+  }
   
   
   //ACCESSORS
@@ -187,22 +269,45 @@ public class LibLibrary {
   public HashMap<String, int[]> getIndex() {
     return index;
   }
-  //Method to share the values contained in dic upon request.
+  //Method to share the values contained in dic upon request. The dictionary is not kept as Strings,
+  //so every call builds a fresh copy of all ~150k of them; prefer getLexicon() where possible.
   public String[][] getDic() {
-    return dic;
+    return lexicon.toArrays();
+  }
+  //Method to share the dictionary upon request.
+  public Lexicon getLexicon() {
+    return lexicon;
+  }
+  //Method to snapshot the document so it can be re-rolled later without parsing it again (see LibDocument).
+  //Call it before setNextWord, which overwrites scrublist and removes keys from the index.
+  public LibDocument getDocument(){
+    return new LibDocument(scrublist, symbols, index, lexicon);
+  }
+  //Method to make an unchangeable template of the document as it is now, to fill many times over (see LibTemplate).
+  public LibTemplate getTemplate(){
+    return getDocument().toTemplate();
   }
-  //Method to share the values contained in scrublist upon request.
+  //Method to share the values contained in scrublist upon request. This is a fresh String copy each time,
+  //so ask again after replacing words to see them.
   public String[] getScrubList(){
+    return symbols.resolve(scrublist);
+  }
+  //Method to share scrublist in its compact form, as IDs into getSymbols(). Not a copy.
+  public int[] getScrubIds(){
     return scrublist;
   }
+  //Method to share the document's table of distinct words.
+  public SymbolTable getSymbols(){
+    return symbols;
+  }
    
   //Method to return a happy string instead of a number to identify which part of the dictionary
   //the given indexed word can be found under. We don't care about index location in this method.
   public String getNextVal(int number){
-   int value = isItInDic(scrublist[number]);
-   if (value == 1){
+   int value = getTags(symbols.get(scrublist[number]));
+   if ((value & PartOfSpeechTable.NOUN) != 0){
      return "a Noun";
-   } else if (value == 2) {
+   } else if ((value & PartOfSpeechTable.ADJECTIVE) != 0) {
      return "an Adjective";
    } else {
      return "a Verb";
@@ -211,27 +316,33 @@ public class LibLibrary {
   
   //Method to return boolean of whether two words are both the same part of speech.
   public boolean compareWords(String word, int index_number){
-    boolean same = false;                                       //Sets return value to be false if all of the conditions fail.
-    String word2 = scrublist[index_number];            
-    //System.out.println(index_number + ", " + word);                            
-    if ((inNounArray(word) > 0) && (inNounArray(word2) > 0)){   //If both words can be found in the same dictionary array...
-      same = true;                                              //Whatever the list, then the user is probably justified...
-    }                                                           //In selecting the word, so we shouldn't harass them about it.
-    if ((inAdjArray(word) > 0) && (inAdjArray(word2) > 0)){     //Only when none of these conditions apply should we declare
-      same = true;                                              //That the words are not the same case.
-    }
-    if ((inVerbArray(word) > 0) && (inVerbArray(word2) > 0)){
-      same = true;
+    String word2 = symbols.get(scrublist[index_number]);
+    return (getTags(word) & getTags(word2)) != 0;               //If both words share any list, the user is probably justified...
+  }                                                             //In selecting the word, so we shouldn't harass them about it.
+
+  //Method to return up to limit dictionary words close to word that are the part of speech wanted at index_number.
+  public String[] suggestWords(String word, int index_number, int limit){
+    int part = PartOfSpeechTable.firstPart(getTags(symbols.get(scrublist[index_number])));  //The same part getNextVal asks for.
+    if (part < 0){
+      return new String[0];
     }
-    return same;
+    return lexicon.getSuggester().suggestions(word, part, limit);
+  }
+
+  //Method to return every part of speech a word can be, as a PartOfSpeechTable bitmask (0 if none).
+  public int getTags(String word){
+    int mask = lexicon.lookup(word);
+    LibMetrics.lookup(mask);                                    //Counts hits and misses, when metrics are on.
+    return mask;
   }
   
   
   //Takes input word and returns all the locations within scrublist that match that string.
   public int[] findArrayIndexes(String word){
+    int id = symbols.find(word);                           //Compare IDs, not Strings (-1 never matches).
     int counter = 0;                                       //Start a counter to see how big we need to make the array.
     for (int i = 0; i < scrublist.length; i++){            //For all the elements in scrublist...
-      if (scrublist[i].equals(word)){                      //If that word matches the word in question...
+      if (scrublist[i] == id){                             //If that word matches the word in question...
         counter++;                                         //Increment the counter.
       }
     }
@@ -240,7 +351,7 @@ public class LibLibrary {
       int previous = 0;                                    //Initialize rachet that keeps track of the previous j-value.
       for(int i = 0; i < counter; i++){                    //For each of the terms in the array...
         for(int j = previous; j < scrublist.length; j++){  //Look for the index of the next repeat
-          if(scrublist[j].equals(word)){
+          if(scrublist[j] == id){
             if (array[i] == 0){                            //If array[i] has not yet been populated...
               array[i] = j;                                //Populate it with j, the index of scrublist.
               previous = j + 1;                            //Tighten the ratchet.
@@ -258,6 +369,13 @@ public class LibLibrary {
   
   //Sum up all the terms in list that are also in dic, skipping all duplicates
   public int getLibSize() {
+    return new PositionIndex(scrublist, symbols, this).size();
+  }
+
+  //The original getLibSize(), which calls hasDuplicates() (a copy and sort of scrublist) for every term.
+  //Kept for LibBenchmark. Unlike getLibSize(), it counts "Dog" and "dog" as two words.
+  public int getLibSizeByScan() {
+    String[] scrublist = getScrubList();
     ArrayList<String> dupetracker = new ArrayList<String>();
     int count = 0;                                                           //Initialize counter.
     for (int i = 0; i < scrublist.length; i++){              
@@ -279,6 +397,7 @@ public class LibLibrary {
   //Method that returns an integer value showing how many times that word is duplicated in the source material.
   //Maybe should be turned into a boolean return, since there's a better way to keep track of duplicates in getLibSize.
   public int hasDuplicates(int number){
+    String[] scrublist = getScrubList();
     String temp = scrublist[number];                                //Store the term we are checking.
     String[] copy = Arrays.copyOf(scrublist, scrublist.length);     //Copy the array and sort it for searching.
     Arrays.sort(copy);
@@ -312,35 +431,39 @@ public class LibLibrary {
   }
   
   
-  //Asks the in*Array methods if the list item associated with the given number is contained in them, one at...
-  //a time. It then returns a number depending on which array it is under, or a negative number if none.
+  //Looks the list item up in the part of speech table (one probe for all three arrays). It then returns
+  //a number depending on which array it is under (nouns first), or a negative number if none.
   public int isItInDic(String location) {
-    if (inNounArray(location) > 0) {
-      return 1;
-    } else if (inAdjArray(location) > 0) {
-      return 2;
-    } else if (inVerbArray(location) > 0) {
-      return 3;
-    } else {
+    int part = PartOfSpeechTable.firstPart(getTags(location));
+    if (part < 0) {
       return -1;
-    }   
+    }
+    return part + 1;
   }
 
   //Binary search if the list item associated with the given number is in the NOUN array (and says where it can be found).
   public int inNounArray(String location){
-    int results = Arrays.binarySearch(dic[0], location);
+    int results = lexicon.find(0, location);
     return results;
   }
   //Binary search if the list item associated with the given number is in the ADJECTIVE array (and says where it can be found).
   public int inAdjArray(String location){
-    int results = Arrays.binarySearch(dic[1], location);
+    int results = lexicon.find(1, location);
     return results;
   }
   //Binary search if the list item associated with the given number is in the VERB array (and says where it can be found).
   public int inVerbArray(String location){
-    int results = Arrays.binarySearch(dic[2], location);
+    int results = lexicon.find(2, location);
     return results;
   }
-  
-  
-}
\ No newline at end of file
+
+
+  //The sampler autoFill draws from, making an unseeded one the first time if none was given.
+  private WordSampler sampler(){
+    if (sampler == null){
+      sampler = new WordSampler(lexicon);
+    }
+    return sampler;
+  }
+
+}
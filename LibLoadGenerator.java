@@ -0,0 +1,89 @@
+/* Class: LibLoadGenerator
+ * Date: 10/18/26
+ * Description: A local load generator for LibServer. It POSTs the same small document to /liberate from
+ * several client threads at once and reports throughput and the p50, p90, p99 and maximum latency.
+ * If no URL is given it starts a LibServer of its own on a free port first.
+ * Usage: java LibLoadGenerator [-url http://localhost:8080/liberate] [-threads 8] [-requests 10000] [-file input.txt]
+ */
+
+import java.net.*;
+import java.net.http.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class LibLoadGenerator {
+  public static void main(String[] args) throws Exception {
+    String url = null;
+    int threads = 8;
+    int requests = 10000;
+    String text = "The quick brown fox jumps over the lazy dog. Run, dog, run (quickly); the fox: eats.";
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-url")) {
+        url = args[++i];
+      } else if (args[i].equals("-threads")) {
+        threads = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-requests")) {
+        requests = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-file")) {
+        text = new String(Files.readAllBytes(Paths.get(args[++i])), "UTF-8");
+      }
+    }
+
+    LibServer server = null;
+    if (url == null) {                               //Nothing to point at, so serve it ourselves.
+      server = new LibServer(Lexicon.getInstance());
+      server.start(0);
+      url = "http://localhost:" + server.getPort() + "/liberate";
+    }
+
+    final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    final HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                                           .POST(HttpRequest.BodyPublishers.ofString(text)).build();
+    for (int i = 0; i < 500; i++) {                  //Warm up the JIT on both ends.
+      client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    final long[] latencies = new long[requests];
+    final int total = requests;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    ArrayList<Future<?>> workers = new ArrayList<Future<?>>();
+    long start = System.nanoTime();
+    for (int t = 0; t < threads; t++) {
+      final int first = t;
+      final int step = threads;
+      workers.add(pool.submit(new Callable<Void>() {
+        public Void call() throws Exception {
+          for (int i = first; i < total; i += step) {
+            long sent = System.nanoTime();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            latencies[i] = System.nanoTime() - sent;
+            if (response.statusCode() != 200) {
+              throw new RuntimeException("HTTP " + response.statusCode() + ": " + response.body());
+            }
+          }
+          return null;
+        }
+      }));
+    }
+    for (Future<?> worker : workers) {
+      worker.get();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    pool.shutdown();
+    if (server != null) {
+      server.stop();
+    }
+
+    Arrays.sort(latencies);
+    System.out.printf("%d requests from %d threads in %.2f s (%.0f requests/s)%n", total, threads, seconds, total / seconds);
+    System.out.printf("p50 %.3f ms   p90 %.3f ms   p99 %.3f ms   max %.3f ms%n", percentile(latencies, 50),
+                      percentile(latencies, 90), percentile(latencies, 99), latencies[total - 1] / 1e6);
+  }
+
+  //The given percentile of a sorted array of nanosecond latencies, in milliseconds.
+  public static double percentile(long[] sorted, double p) {
+    int i = (int) Math.ceil(p / 100 * sorted.length) - 1;
+    return sorted[Math.max(i, 0)] / 1e6;
+  }
+}
@@ -0,0 +1,234 @@
+/* Class: LibMetrics
+ * Date: 10/18/26
+ * Description: Process-wide counters for where LibLibrary spends its time. It records dictionary hits and
+ * misses for each part of speech, how long loading, tokenizing, indexing and rendering take, a histogram
+ * of tokens per document (bucket i counts documents of 2^(i-1) to 2^i - 1 tokens, bucket 0 empty ones),
+ * and how many words setNextWord has replaced. Counters are LongAdders, so threads do not fight over
+ * them. Recording is off unless the JVM is started with -Dmadlib.metrics=true or setEnabled(true) is
+ * called; while it is off every record method returns after a single boolean check.
+ * The numbers can be read through the accessors below, as JSON with toJson(), or over JMX after register().
+ *
+ * Mutators:
+ * setEnabled(boolean enabled), reset(), register(), lookup(int mask), start(), stop(int stage, long start),
+ * document(int tokens), replaced(int count)
+ *
+ * Accessors:
+ * getInstance(), isEnabled(), getHits(), getMisses(), getStageCounts(), getStageMillis(), getDocuments(),
+ * getTokenHistogram(), getReplacements(), getJson(), toJson()
+ */
+
+import java.lang.management.*;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+public class LibMetrics implements LibMetricsMBean {
+
+  public static final int LOAD = 0;
+  public static final int TOKENIZE = 1;
+  public static final int INDEX = 2;
+  public static final int RENDER = 3;
+  public static final String[] STAGES = {"load", "tokenize", "index", "render"};
+  public static final String[] PARTS = {"noun", "adjective", "verb"};
+
+  private static volatile boolean enabled = Boolean.getBoolean("madlib.metrics");
+  private static final LibMetrics INSTANCE = new LibMetrics();
+
+  private final LongAdder[] hits = adders(3);
+  private final LongAdder[] misses = adders(3);
+  private final LongAdder[] stageCounts = adders(4);
+  private final LongAdder[] stageNanos = adders(4);
+  private final LongAdder[] histogram = adders(33);
+  private final LongAdder replacements = new LongAdder();
+
+
+  //CONSTRUCTORS
+  private LibMetrics() {
+  }
+
+  public static LibMetrics getInstance() {
+    return INSTANCE;
+  }
+
+
+  //RECORDING (all static, and all a no-op while metrics are off)
+  //A dictionary lookup that came back with the given PartOfSpeechTable mask.
+  public static void lookup(int mask) {
+    if (!enabled) {
+      return;
+    }
+    for (int part = 0; part < 3; part++) {
+      if ((mask & PartOfSpeechTable.bit(part)) != 0) {
+        INSTANCE.hits[part].increment();
+      } else {
+        INSTANCE.misses[part].increment();
+      }
+    }
+  }
+
+  //Start timing a stage. Returns 0 if metrics are off, which stop() then ignores.
+  public static long start() {
+    if (!enabled) {
+      return 0;
+    }
+    return System.nanoTime();
+  }
+
+  //Finish timing a stage started with start().
+  public static void stop(int stage, long start) {
+    if (start == 0 || !enabled) {
+      return;
+    }
+    INSTANCE.stageNanos[stage].add(System.nanoTime() - start);
+    INSTANCE.stageCounts[stage].increment();
+  }
+
+  //A document of the given number of tokens was read.
+  public static void document(int tokens) {
+    if (!enabled) {
+      return;
+    }
+    INSTANCE.histogram[32 - Integer.numberOfLeadingZeros(tokens)].increment();
+  }
+
+  //setNextWord replaced this many words.
+  public static void replaced(long count) {
+    if (!enabled) {
+      return;
+    }
+    INSTANCE.replacements.add(count);
+  }
+
+
+  //MUTATORS
+  public void setEnabled(boolean on) {
+    enabled = on;
+  }
+
+  //Zero every counter.
+  public void reset() {
+    LongAdder[][] all = {hits, misses, stageCounts, stageNanos, histogram};
+    for (int i = 0; i < all.length; i++) {
+      for (int j = 0; j < all[i].length; j++) {
+        all[i][j].reset();
+      }
+    }
+    replacements.reset();
+  }
+
+  //Publish these metrics over JMX as "MadLiberator:type=LibMetrics". Safe to call more than once.
+  public static void register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName("MadLiberator:type=LibMetrics");
+      if (!server.isRegistered(name)) {
+        server.registerMBean(INSTANCE, name);
+      }
+    }
+    catch (JMException e) {
+      throw new RuntimeException("Failed to register LibMetrics: " + e.getMessage());
+    }
+  }
+
+
+  //ACCESSORS
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public long[] getHits() {
+    return sums(hits);
+  }
+
+  public long[] getMisses() {
+    return sums(misses);
+  }
+
+  //How many times each stage has been timed.
+  public long[] getStageCounts() {
+    return sums(stageCounts);
+  }
+
+  //Total milliseconds spent in each stage.
+  public double[] getStageMillis() {
+    double[] millis = new double[stageNanos.length];
+    for (int i = 0; i < millis.length; i++) {
+      millis[i] = stageNanos[i].sum() / 1e6;
+    }
+    return millis;
+  }
+
+  public long getDocuments() {
+    long total = 0;
+    for (int i = 0; i < histogram.length; i++) {
+      total += histogram[i].sum();
+    }
+    return total;
+  }
+
+  public long[] getTokenHistogram() {
+    return sums(histogram);
+  }
+
+  public long getReplacements() {
+    return replacements.sum();
+  }
+
+  public String getJson() {
+    return toJson();
+  }
+
+  //Everything above as one JSON object.
+  public String toJson() {
+    StringBuilder json = new StringBuilder("{\"enabled\":").append(enabled);
+    long[] h = getHits();
+    long[] m = getMisses();
+    json.append(",\"lookups\":{");
+    for (int part = 0; part < 3; part++) {
+      if (part > 0) {
+        json.append(',');
+      }
+      json.append('"').append(PARTS[part]).append("\":{\"hits\":").append(h[part]).append(",\"misses\":").append(m[part]).append('}');
+    }
+    long[] counts = getStageCounts();
+    double[] millis = getStageMillis();
+    json.append("},\"stages\":{");
+    for (int stage = 0; stage < STAGES.length; stage++) {
+      if (stage > 0) {
+        json.append(',');
+      }
+      json.append('"').append(STAGES[stage]).append("\":{\"count\":").append(counts[stage]).append(",\"millis\":").append(millis[stage]).append('}');
+    }
+    json.append("},\"documents\":").append(getDocuments()).append(",\"tokenHistogram\":[");
+    long[] buckets = getTokenHistogram();
+    int last = buckets.length - 1;
+    while (last > 0 && buckets[last] == 0) {         //Leave off the empty top buckets.
+      last--;
+    }
+    for (int i = 0; i <= last; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(buckets[i]);
+    }
+    json.append("],\"replacements\":").append(getReplacements()).append('}');
+    return json.toString();
+  }
+
+
+  private static LongAdder[] adders(int n) {
+    LongAdder[] adders = new LongAdder[n];
+    for (int i = 0; i < n; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  private static long[] sums(LongAdder[] adders) {
+    long[] sums = new long[adders.length];
+    for (int i = 0; i < sums.length; i++) {
+      sums[i] = adders[i].sum();
+    }
+    return sums;
+  }
+
+}
@@ -0,0 +1,20 @@
+/* Interface: LibMetricsMBean
+ * Date: 10/18/26
+ * Description: The JMX view of LibMetrics. LibMetrics.register() publishes it as
+ * "MadLiberator:type=LibMetrics", so jconsole or any other JMX client can read the numbers from a
+ * running process. Arrays are indexed by part of speech (noun, adjective, verb) or by LibMetrics stage.
+ */
+
+public interface LibMetricsMBean {
+  boolean isEnabled();
+  void setEnabled(boolean enabled);
+  long[] getHits();
+  long[] getMisses();
+  long[] getStageCounts();
+  double[] getStageMillis();
+  long getDocuments();
+  long[] getTokenHistogram();
+  long getReplacements();
+  String getJson();
+  void reset();
+}
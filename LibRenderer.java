@@ -0,0 +1,113 @@
+/* Class: LibRenderer
+ * Date: 10/18/26
+ * Description: Turns a list of tokens back into text and streams it straight into a Writer, so a finished
+ * mad lib never has to be built up as one big String. Words are separated by a single space, and the
+ * marks , . ; : - are attached to the word before them. The same renderer can write to a file, to the
+ * console, or to an in-memory buffer.
+ *
+ * Mutators:
+ * write(String token), writeAll(String[] tokens), flush(), close()
+ *
+ * Accessors:
+ * attachesToPrevious(String token), render(String[] tokens), toFile(String outputfilename), toStdout()
+ */
+
+import java.io.*;
+
+public class LibRenderer {
+
+  private Writer out;
+  private boolean first = true;  //Fencepost: no space before the first token.
+  private boolean closeable;     //False for System.out, which we must not close.
+
+
+  //CONSTRUCTORS
+  public LibRenderer(Writer out) {
+    this(out, true);
+  }
+  private LibRenderer(Writer out, boolean closeable) {
+    this.out = out;
+    this.closeable = closeable;
+  }
+
+  //Render into a new file (replacing any old one), through a buffer.
+  public static LibRenderer toFile(String outputfilename) {
+    try {
+      return new LibRenderer(new BufferedWriter(new FileWriter(outputfilename)));
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to create " + outputfilename + ": " + e.getMessage());
+    }
+  }
+
+  //Render onto the console. close() only flushes, so System.out stays usable.
+  public static LibRenderer toStdout() {
+    return new LibRenderer(new BufferedWriter(new OutputStreamWriter(System.out)), false);
+  }
+
+
+  //MUTATORS
+  //Write the next token, with a space in front of it unless it is punctuation that hugs the previous word.
+  public void write(String token) {
+    try {
+      if (!first && !attachesToPrevious(token)) {
+        out.write(' ');
+      }
+      out.write(token);
+      first = false;
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+  //Write every token of a list in order.
+  public void writeAll(String[] tokens) {
+    long start = LibMetrics.start();
+    for (int i = 0; i < tokens.length; i++) {
+      write(tokens[i]);
+    }
+    LibMetrics.stop(LibMetrics.RENDER, start);
+  }
+
+  //Push anything buffered out to the destination.
+  public void flush() {
+    try {
+      out.flush();
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+  //Flush, and close the destination unless it is the console.
+  public void close() {
+    try {
+      if (closeable) {
+        out.close();
+      } else {
+        out.flush();
+      }
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+
+  //ACCESSORS
+  //The punctuation attachment rule: these marks go right after the previous word, with no space.
+  public static boolean attachesToPrevious(String token) {
+    return token.equals(",") || token.equals(".") || token.equals(";") || token.equals(":") || token.equals("-");
+  }
+
+  //Render a list of tokens into a String, for small outputs and testing.
+  public static String render(String[] tokens) {
+    StringWriter buffer = new StringWriter();
+    LibRenderer renderer = new LibRenderer(buffer);
+    renderer.writeAll(tokens);
+    renderer.close();
+    return buffer.toString();
+  }
+
+}
@@ -0,0 +1,220 @@
+/* Class: LibServer
+ * Date: 10/18/26
+ * Description: A small HTTP front end for autofill, built on the JDK's own HttpServer. POST some text to
+ * /liberate (optionally with ?seed=<number> for a repeatable result) and the liberated text comes back as
+ * text/plain. GET /health answers "ok". Every request shares the one Lexicon and, when no seed is given,
+ * the one unseeded WordSampler, so nothing but the document itself is set up per request. Requests run
+ * on virtual threads when the JVM has them (Java 21 and up) and on a cached thread pool otherwise.
+ * With -Dmadlib.cache=<directory>, texts that have been POSTed before skip tokenizing and tagging (see TemplateCache);
+ * new texts are added to the cache on a background thread, so the reply does not wait for the disk.
+ * Bodies over MAX_BODY bytes (-Dmadlib.server.maxbytes to change it) are refused with 413, and a text that
+ * fails to tokenize or fill gets a 500 with the reason instead of a dropped connection.
+ * Usage: java MadLiberator -serve [port]
+ */
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.concurrent.*;
+
+public class LibServer {
+
+  public static final int DEFAULT_PORT = 8080;
+  public static final long MAX_BODY = Long.getLong("madlib.server.maxbytes", 8L << 20);  //Largest text accepted.
+
+  private final Lexicon lexicon;
+  private final WordSampler sampler;   //Unseeded, so it is safe to share between requests.
+  private final TemplateCache cache;   //Or null.
+  private HttpServer server;
+  private ExecutorService executor;
+  private ExecutorService writer;      //Writes new cache entries, one at a time, off the request threads.
+
+  public static void main(String[] args) {
+    int port = DEFAULT_PORT;
+    if (args.length > 0) {
+      port = Integer.parseInt(args[0]);
+    }
+    LibServer libserver = new LibServer(Lexicon.getInstance());
+    libserver.start(port);
+    System.out.println("Serving mad libs on http://localhost:" + libserver.getPort() + "/liberate");
+  }
+
+
+  //CONSTRUCTORS
+  public LibServer(Lexicon lexicon) {
+    this.lexicon = lexicon;
+    this.sampler = new WordSampler(lexicon);
+    this.cache = TemplateCache.fromProperties(lexicon);
+  }
+
+
+  //MUTATORS
+  //Start listening on the given port (0 picks a free one).
+  public void start(int port) {
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");  //Headers and body are separate writes; without
+    }                                                             //this, Nagle holds the body ~40 ms for an ACK.
+    try {
+      server = HttpServer.create(new InetSocketAddress(port), 0);
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to listen on port " + port + ": " + e.getMessage());
+    }
+    server.createContext("/liberate", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        liberate(exchange);
+      }
+    });
+    server.createContext("/health", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        reply(exchange, 200, "ok");
+      }
+    });
+    executor = newExecutor();
+    server.setExecutor(executor);
+    if (cache != null) {
+      writer = Executors.newSingleThreadExecutor();
+      cache.setWriter(writer);
+    }
+    server.start();
+  }
+
+  //Stop accepting requests, giving the ones in flight up to a second to finish.
+  public void stop() {
+    server.stop(1);
+    executor.shutdown();
+    if (writer != null) {
+      writer.shutdown();                                          //Entries already queued are still written.
+    }
+  }
+
+
+  //ACCESSORS
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  //Liberate one text. This is what /liberate does, minus the HTTP.
+  public void liberate(Reader text, Writer out, WordSampler sampler) {
+    LibLibrary madlib = new LibLibrary(lexicon, sampler);
+    madlib.setScrubList(Tokenizer.tokenize(text));
+    madlib.setIndex();
+    liberate(madlib, out, sampler);
+  }
+
+  //Liberate a document that has already been tokenized and indexed.
+  public void liberate(LibLibrary madlib, Writer out, WordSampler sampler) {
+    madlib.setSampler(sampler);
+    madlib.autoComplete(0);
+    LibRenderer renderer = new LibRenderer(out);
+    renderer.writeAll(madlib.getScrubList());
+    renderer.close();
+  }
+
+
+  //Handle POST /liberate[?seed=n].
+  private void liberate(HttpExchange exchange) throws IOException {
+    try {
+      if (!exchange.getRequestMethod().equals("POST")) {
+        exchange.getResponseHeaders().set("Allow", "POST");
+        reply(exchange, 405, "POST the text to liberate.");
+        return;
+      }
+      WordSampler own = sampler;
+      String seed = getParameter(exchange.getRequestURI(), "seed");
+      if (seed != null) {
+        try {
+          own = new WordSampler(lexicon, Long.parseLong(seed));
+        }
+        catch (NumberFormatException e) {
+          reply(exchange, 400, "seed must be a whole number.");
+          return;
+        }
+      }
+      byte[] text = readBody(exchange);
+      if (text == null) {
+        reply(exchange, 413, "The text is over " + MAX_BODY + " bytes.");
+        return;
+      }
+      //Render into memory first, so the reply has a known length and goes out in one write.
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      try {
+        if (cache != null) {
+          LibLibrary madlib = cache.load(text, StandardCharsets.UTF_8);
+          liberate(madlib, new OutputStreamWriter(body, StandardCharsets.UTF_8), own);
+        } else {
+          Reader in = new InputStreamReader(new ByteArrayInputStream(text), StandardCharsets.UTF_8);
+          liberate(in, new OutputStreamWriter(body, StandardCharsets.UTF_8), own);
+        }
+      }
+      catch (RuntimeException e) {                                //Tell the client, rather than just dropping the connection.
+        reply(exchange, 500, "Failed to liberate the text: " + e.getMessage());
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+      exchange.sendResponseHeaders(200, body.size());
+      OutputStream out = exchange.getResponseBody();
+      body.writeTo(out);
+      out.close();
+    }
+    finally {
+      exchange.close();
+    }
+  }
+
+  //The whole request body, or null if it is over MAX_BODY bytes.
+  private static byte[] readBody(HttpExchange exchange) throws IOException {
+    String length = exchange.getRequestHeaders().getFirst("Content-Length");
+    if (length != null) {
+      try {
+        if (Long.parseLong(length.trim()) > MAX_BODY) {
+          return null;                                            //Refuse it without reading it.
+        }
+      }
+      catch (NumberFormatException e) {                           //Let the read below decide.
+      }
+    }
+    byte[] body = exchange.getRequestBody().readNBytes((int) Math.min(MAX_BODY + 1, Integer.MAX_VALUE - 8));
+    if (body.length > MAX_BODY) {
+      return null;
+    }
+    return body;
+  }
+
+  //Send a short plain text reply.
+  private static void reply(HttpExchange exchange, int status, String message) throws IOException {
+    byte[] body = message.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+    exchange.sendResponseHeaders(status, body.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(body);
+    out.close();
+  }
+
+  //The value of a query string parameter, or null if it is not there.
+  private static String getParameter(URI uri, String name) {
+    String query = uri.getRawQuery();
+    if (query == null) {
+      return null;
+    }
+    String[] pairs = query.split("&");
+    for (int i = 0; i < pairs.length; i++) {
+      if (pairs[i].startsWith(name + "=")) {
+        return URLDecoder.decode(pairs[i].substring(name.length() + 1), StandardCharsets.UTF_8);
+      }
+    }
+    return null;
+  }
+
+  //One virtual thread per request if this JVM has them, otherwise a cached pool of platform threads.
+  private static ExecutorService newExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+    catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+/* Class: LibTemplate
+ * Date: 10/18/26
+ * Description: A mad lib reduced to what it takes to fill it, for making many filled copies of the same
+ * text. LibLibrary fills a document by overwriting scrublist and deleting index keys as it goes, and
+ * LibDocument keeps one current fill; either way there is one result at a time, and a second one means
+ * undoing the first or parsing the file again. A LibTemplate never changes once it is made. It is given a
+ * complete assignment, one replacement word per slot, and writes the result into a new token array (apply)
+ * or straight into a renderer (render) in a single pass over the tokens, leaving the template as it was.
+ * So any number of results can be made from one template, one after the other or on many threads at once,
+ * without parsing or tagging the text again.
+ *
+ * Slots are numbered the way LibDocument numbers them: in the order their words first appear. Each
+ * position shows its slot's word dressed in the capitals and punctuation of its own source token (see
+ * WordNormalizer), worked out once per spelling per assignment rather than once per position.
+ *
+ * Accessors:
+ * load(String inputfilename, Lexicon lexicon), getSlotCount(), getSlotWord(int slot), getSlotPart(int slot),
+ * getSlotForm(int slot), getPositions(int slot), getTokenCount(), getOriginal(), draw(WordSampler sampler),
+ * apply(String[] assignment), render(String[] assignment, LibRenderer out), toString(String[] assignment)
+ */
+
+import java.io.*;
+import java.util.*;
+
+public class LibTemplate {
+
+  private final String[] words;          //Every word the tokens use, by ID. A copy, so nobody can add to it.
+  private final int[] tokens;            //The text, as IDs into words.
+  private final int[] spellingAt;        //For each position, its spelling number if it belongs to a slot, or -1.
+  private final int[] spellingIds;       //For each spelling (a distinct source token of a slot), its ID...
+  private final int[] spellingSlots;     //...and its slot.
+  private final String[] slotWords;      //The source word of each slot.
+  private final int[] slotParts;         //Its part of speech (0 = noun, 1 = adjective, 2 = verb).
+  private final int[] slotForms;         //Its inflection (see MorphologyIndex).
+  private final int[][] slotPositions;   //Where it appears.
+
+
+  //CONSTRUCTORS
+  //Build a template from tokens (IDs into symbols) and their slots, as LibDocument keeps them. Nothing
+  //passed in is kept, so the caller may go on changing it.
+  public LibTemplate(int[] tokens, SymbolTable symbols, String[] slotWords, int[] slotParts, int[] slotForms,
+                     int[][] slotPositions) {
+    words = new String[symbols.size()];
+    for (int id = 0; id < words.length; id++) {
+      words[id] = symbols.get(id);
+    }
+    this.tokens = tokens.clone();
+    this.slotWords = slotWords.clone();
+    this.slotParts = slotParts.clone();
+    this.slotForms = slotForms.clone();
+    this.slotPositions = new int[slotPositions.length][];
+    spellingAt = new int[tokens.length];
+    Arrays.fill(spellingAt, -1);
+    int[] spellingOf = new int[words.length];              //ID -> spelling number + 1, 0 for none yet.
+    IntList ids = new IntList();
+    IntList slots = new IntList();
+    for (int slot = 0; slot < slotPositions.length; slot++) {
+      this.slotPositions[slot] = slotPositions[slot].clone();
+      for (int position : slotPositions[slot]) {
+        int id = tokens[position];
+        if (spellingOf[id] == 0) {
+          ids.add(id);
+          slots.add(slot);
+          spellingOf[id] = ids.size();
+        }
+        spellingAt[position] = spellingOf[id] - 1;
+      }
+    }
+    spellingIds = ids.toArray();
+    spellingSlots = slots.toArray();
+  }
+
+  //Read, tokenize, index and tag a file.
+  public static LibTemplate load(String inputfilename, Lexicon lexicon) {
+    return LibDocument.load(inputfilename, lexicon).toTemplate();
+  }
+
+
+  //ACCESSORS
+  public int getSlotCount() {
+    return slotWords.length;
+  }
+
+  public String getSlotWord(int slot) {
+    return slotWords[slot];
+  }
+
+  public int getSlotPart(int slot) {
+    return slotParts[slot];
+  }
+
+  public int getSlotForm(int slot) {
+    return slotForms[slot];
+  }
+
+  public int[] getPositions(int slot) {
+    return slotPositions[slot].clone();
+  }
+
+  public int getTokenCount() {
+    return tokens.length;
+  }
+
+  //The tokens as they were read.
+  public String[] getOriginal() {
+    String[] original = new String[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      original[i] = words[tokens[i]];
+    }
+    return original;
+  }
+
+  //A random assignment: a word of the right part of speech and inflection for every slot, in slot order.
+  public String[] draw(WordSampler sampler) {
+    return sampler.drawAll(slotParts, slotForms);
+  }
+
+  //The tokens with every slot filled from assignment (one word per slot; null leaves a slot's source word).
+  public String[] apply(String[] assignment) {
+    String[] dressed = dress(assignment);
+    String[] out = new String[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      int spelling = spellingAt[i];
+      out[i] = spelling < 0 ? words[tokens[i]] : dressed[spelling];
+    }
+    return out;
+  }
+
+  //Write the tokens with every slot filled from assignment straight into out, without building them up first.
+  public void render(String[] assignment, LibRenderer out) {
+    long start = LibMetrics.start();
+    String[] dressed = dress(assignment);
+    for (int i = 0; i < tokens.length; i++) {
+      int spelling = spellingAt[i];
+      out.write(spelling < 0 ? words[tokens[i]] : dressed[spelling]);
+    }
+    LibMetrics.stop(LibMetrics.RENDER, start);
+  }
+
+  //The text with every slot filled from assignment, for small outputs and testing.
+  public String toString(String[] assignment) {
+    StringWriter buffer = new StringWriter();
+    LibRenderer renderer = new LibRenderer(buffer);
+    render(assignment, renderer);
+    renderer.close();
+    return buffer.toString();
+  }
+
+
+  //Each spelling's fill: the assigned word of its slot, dressed to look like the spelling.
+  private String[] dress(String[] assignment) {
+    if (assignment.length != slotWords.length) {
+      throw new RuntimeException("Assignment has " + assignment.length + " words for " + slotWords.length + " slots.");
+    }
+    String[] dressed = new String[spellingIds.length];
+    for (int s = 0; s < dressed.length; s++) {
+      String source = words[spellingIds[s]];
+      String fill = assignment[spellingSlots[s]];
+      dressed[s] = fill == null ? source : WordNormalizer.decorate(fill, source);
+    }
+    return dressed;
+  }
+
+}
@@ -4,26 +4,55 @@
  * Description: This class leverages the objects of a helper to convert any text into
  * a mad lib, allowing a user to manually enter new words or let the helper decide from the
  * same list of nouns/adjectives/verbs/numbers.
+ * Run it with "-batch <directory or glob> [threads] [seed]" to autofill many files at once (see BatchLiberator),
+ * or with "-serve [port]" to autofill text POSTed over HTTP (see LibServer), or with
+ * "-stream <input file> [output file] [seed]" to autofill a file too big for memory (see StreamLiberator),
+ * or with "-variants <input file> <count> [threads] [seed] [output .jsonl file]" to make many fills of one file (see VariantGenerator).
  */
 
-import java.io.*;    //To access PrintStream.
 import java.util.*;  //To use ArrayList to store the input file.
 
 public class MadLiberator {
+  public static final int SUGGESTIONS = 5;  //How many close words to offer when one is the wrong part of speech.
+
   public static void main(String[] args) {
+    if (args.length > 0 && args[0].equals("-batch")) {   //Non-interactive mode for whole directories.
+      BatchLiberator.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("-stream")) {  //One pass, bounded memory (see StreamLiberator).
+      StreamLiberator.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("-variants")) {  //Many fills of one template (see VariantGenerator).
+      VariantGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("-serve")) {   //HTTP mode (see LibServer).
+      LibServer.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
    
+    if (LibMetrics.getInstance().isEnabled()) {          //Let JMX clients watch the run.
+      LibMetrics.register();
+    }
+
     //Introduction
     System.out.println("Welcome to the Mad Libberator!");
     
-    //Initialize a SimpleInput object and get input file.
-    SimpleInput keyboard = new SimpleInput();
+    //Get the console reader and the input file.
+    FastInput keyboard = FastInput.stdin();
     System.out.println("Just give me the name of the input file, and we can begin.");
     System.out.print("Input: ");
     String inputfilename = keyboard.nextLine();
+    if (inputfilename == null) {                           //Nothing was typed before the input ended.
+      return;
+    }
            
     LibLibrary madlib = new LibLibrary(inputfilename);     //Initialize a helper class object to do the dictionary tasks.
+    madlib.setVerbose(true);                               //Show what autocomplete picks.
     HashMap<String, int[]> hashindex = madlib.getIndex();  //Get access to the index that holds all the important info
-    int index_size = hashindex.size();                     //How many unique words to be replaced.
+    int index_size = madlib.getLibSize();                  //How many unique words to be replaced (spellings of a word count once).
     
     //Get the user to supply the next words, or choose the autofill option for a fast and easy job.
     System.out.println("There are a total of " + index_size + " words to replace.");
@@ -31,7 +60,7 @@ public class MadLiberator {
     System.out.println("Autocomplete, or get help remembering what each part of speech is, just type -1");
     keyboard.nextLine();                                   //This is just a line break and a pause.
     
-    String[] the_list = madlib.getScrubList();             //The source array that will be changed and exported to text.
+    String[] the_list = madlib.getScrubList();             //A copy of the source array, to walk through (it does not change).
     int completed = 0;                                     //How many words have already been replaced.
     
     for (int i = 0; i < the_list.length; i++) {            //For each term in the source array...
@@ -40,20 +69,35 @@ public class MadLiberator {
         String part_of_speech = madlib.getNextVal(i);                                         //Get the of index associated with that row's part of speech.
         System.out.println("word: " + (completed + 1) + ", " + part_of_speech + ", please");  //Then ask the user to input something of the same type.
         String replacement = keyboard.nextWord();
+        if (replacement == null){                                     //Out of input, so let autocomplete finish the job.
+          autoComplete(madlib, i);
+          break;
+        }
         
         boolean same = madlib.compareWords(replacement, i);           //It does a quick search to see if the user has provided a word of the right type.
         
         while (!same){                                                //If it appears that they did not, then go into loop.
           System.out.println(replacement);
           if (replacement.equals("-1")){                              //This is the sentinel value to go into menu.
-            menu(madlib, keyboard, replacement, i);  //Menu keeps the LibLibrary, SimpleInput, intended replacement string, value of i, and size of the_list.
+            menu(madlib, keyboard, replacement, i);  //Menu keeps the LibLibrary, FastInput, intended replacement string, value of i, and size of the_list.
+          }
+          System.out.println("That word does not appear to be " + part_of_speech + ".");
+          String[] close = madlib.suggestWords(replacement, i, SUGGESTIONS);  //Offer some words of the right type that look like theirs.
+          if (close.length > 0){
+            System.out.println("Did you mean: " + String.join(", ", close) + "?");
           }
-          System.out.println("That word does not appear to be " + part_of_speech + ".\n1)Use it anyway.\n2)Try a different word.");  //Warning menu.
-          int fix = keyboard.nextInt();
+          System.out.println("1)Use it anyway.\n2)Try a different word.");  //Warning menu.
+          int fix = keyboard.nextInt(1);         //At the end of the input, just use it.
           if (fix == 1) {                        //Choosing 1. indicates that the user knows better than the program; or frankly, my dear, doesn't give a damn.
             same = true;                         //So we break the loop.
           } else if (fix == 2) {                 //Otherwise...
-            replacement = keyboard.nextWord();   //Give them the opportunity to pick a different replacement.
+            String retry = keyboard.nextWord();  //Give them the opportunity to pick a different replacement.
+            if (retry == null) {
+              same = true;
+            } else {
+              replacement = retry;
+              same = madlib.compareWords(replacement, i);  //Check the new word before asking again.
+            }
           }
         }
         boolean wordset = madlib.setNextWord(replacement, the_list[i]);  //When the word matches our table, or the user tells us to, we set the replacement in the desired location(s).
@@ -66,40 +110,33 @@ public class MadLiberator {
     
     //Now that the for loop has run its course, the index has been entirely seeded with new replacement strings. We just have to replace the proper spaces in the...
     //master list, export the new file, and we are done!
-    String output_text;                           //Declare a string that will be written from the_list.
-    if (the_list[0] != null){                     //Handles the trivial case of an empty list.
-      output_text = the_list[0];                  //Fencepost problem, get first post.
-      for (int i = 1; i < the_list.length; i++){  //For the rest of the items in the_list:
-        if (the_list[i].equals(",") || the_list[i].equals(".") || the_list[i].equals(";") || the_list[i].equals(":") || the_list[i].equals("-")){
-          output_text = output_text + the_list[i];  //Do special thing if next item is punctuation.
-        } else {
-          output_text = output_text + " " + the_list[i];  //Otherwise, add a space and the next word.
-        }
-      }
-    } else {
-      output_text = "";  //The trivial case will write an empty string.
-    }
-    System.out.println(output_text);                  //Show the output info in the console.
+    the_list = madlib.getScrubList();                //Pick up the list with all of the replacements in it.
+    LibRenderer console = LibRenderer.toStdout();   //Show the output info in the console.
+    console.writeAll(the_list);
+    console.close();
+    System.out.println();
     
     
     String outputfilename = "Mad " + inputfilename;  //Make a string that takes the input file name and inserts "Mad" at the front of it.
-    PrintStream outfile;                             //Declare a printstream...
+    LibRenderer outfile;                             //Declare a renderer...
     try {                                            //Make sure that the file gets created.
-      outfile = new PrintStream(outputfilename);
+      outfile = LibRenderer.toFile(outputfilename);
     }
-    catch (FileNotFoundException e) {
+    catch (RuntimeException e) {
+      System.out.println(e.getMessage());
       return;
     }
     
-    outfile.print(output_text);                       //And finally put output_text into outfile.
+    outfile.writeAll(the_list);                      //And finally put the_list into outfile...
+    outfile.close();                                 //...and make sure it all reaches the disk.
   }
   
   
   //The Menu.
-  public static void menu(LibLibrary madlib, SimpleInput keyboard, String nextword, int num){ 
+  public static void menu(LibLibrary madlib, FastInput keyboard, String nextword, int num){ 
     System.out.println("MENU:");
     System.out.println("1. Switch to autocomplete mode\n2. What is a noun?\n3. What is an adjective?\n4. What is a verb?\n5. Back");
-    int menu_choice = keyboard.nextInt();  //Choose a number corresponding to an option.
+    int menu_choice = keyboard.nextInt(5);  //Choose a number corresponding to an option (5, back, at the end of the input).
     if (menu_choice == 1){
       autoComplete(madlib, num);   //Activates autofill mode.
     } else if (menu_choice == 2){  //The rest just detail the part of speech and give examples.
@@ -117,11 +154,7 @@ public class MadLiberator {
   
   //AutoComplete mode.
   public static void autoComplete(LibLibrary madlib, int number){
-    String[] list = madlib.getScrubList();        //Get the list with remaining terms.
-    for (int i = number; i < list.length; i++){   //For each term remaining...
-      String replacement = madlib.autoFill(i);    //use the helper's autoFill option...
-      madlib.setNextWord(replacement, list[i]);   //and set replacement as the next word.
-    }
+    madlib.autoComplete(number);                  //The helper fills every remaining term in one call.
   }
   
 } 
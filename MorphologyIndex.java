@@ -0,0 +1,233 @@
+/* Class: MorphologyIndex
+ * Date: 10/18/26
+ * Description: Works out which inflection each dictionary word is, so autofill can swap a plural noun for
+ * a plural noun, a past tense verb for a past tense verb, and so on. The dictionaries already list the
+ * inflected forms ("A-bombs", "Africanized", "Africanizes"); a word counts as an inflection when taking off
+ * a regular English ending (-s, -es, -ies, -ed, -ied, -ing, -er, -est, with a dropped e or a doubled
+ * consonant) leaves another word of the same list, its lemma. Irregular forms like "ran" are left as
+ * BASE. The inflection of every entry is worked out once, by DictionaryCompiler, and stored in the
+ * compiled file, one byte per entry, which is read where it lies in the mapped file. The rest is left until it is needed:
+ *
+ *   - a token's inflection is its entry's, found through the same PartOfSpeechTable probe as its part of
+ *     speech (plus a binary search when the word is listed under an earlier part of speech too)
+ *   - the list of entries of each part of speech and inflection, which is what WordSampler draws from, is
+ *     gathered the first time a word of that part of speech is drawn, so a run that only ever needs verbs
+ *     never touches the nouns
+ *   - an entry's lemma is found when it is asked for
+ *
+ * Mutators:
+ * (none, it is read-only once built)
+ *
+ * Accessors:
+ * formOf(CharSequence word, int part), formAt(int slot, int part), getLemma(int part, int number),
+ * getForm(int part, int number), getForms(int part), getPool(int part, int form), formName(int form)
+ */
+
+import java.nio.*;
+import java.util.concurrent.atomic.*;
+
+public class MorphologyIndex {
+
+  public static final int BASE = 0;
+  public static final int PLURAL = 1;        //Nouns: dogs, boxes, cities.
+  public static final int THIRD_PERSON = 2;  //Verbs: runs, boxes, tries.
+  public static final int PAST = 3;          //Verbs: tried, baked, stopped.
+  public static final int GERUND = 4;        //Verbs: baking, stopping.
+  public static final int COMPARATIVE = 5;   //Adjectives: larger, happier, bigger.
+  public static final int SUPERLATIVE = 6;   //Adjectives: largest, happiest, biggest.
+  public static final int FORMS = 7;
+  public static final String[] NAMES = {"base", "plural", "third person", "past", "gerund", "comparative", "superlative"};
+
+  private static final int NOUN = 0;
+  private static final int ADJECTIVE = 1;
+  private static final int VERB = 2;
+
+  private final BinaryDictionary dictionary;
+  private final PartOfSpeechTable tags;
+  private final ByteBuffer[] forms;                   //[part].get(number) -> form of the entry, off the heap.
+  private final AtomicReferenceArray<int[][]> pools;  //[part] -> [form] -> every entry number of that part and form, once gathered.
+
+
+  //CONSTRUCTORS
+  //Use the inflections stored with the dictionary, or work them out from the endings if it has none.
+  public MorphologyIndex(BinaryDictionary dictionary, PartOfSpeechTable tags) {
+    this.dictionary = dictionary;
+    this.tags = tags;
+    forms = new ByteBuffer[3];
+    pools = new AtomicReferenceArray<int[][]>(3);
+    for (int part = 0; part < 3; part++) {
+      forms[part] = dictionary.formsView(part);
+      if (forms[part] == null) {
+        forms[part] = classify(part);
+      }
+    }
+  }
+
+
+  //ACCESSORS
+  //The inflection of word as the given part of speech (BASE if it is not a dictionary word).
+  public int formOf(CharSequence word, int part) {
+    int slot = tags.slotOf(word, part);               //The case variant that is this part of speech, if any is.
+    if (slot < 0) {
+      return BASE;
+    }
+    return formAt(slot, part);
+  }
+
+  //The inflection of the word in a PartOfSpeechTable slot, as the given part of speech. For a word typed in
+  //another case, get the slot from slotOf(word, part): the one slotOf(word) gives may be a case variant
+  //that is not this part of speech at all, and then this is BASE.
+  public int formAt(int slot, int part) {
+    int number = tags.numberOf(slot, part);
+    if (number < 0) {
+      return BASE;
+    }
+    return forms[part].get(number);
+  }
+
+  //The entry number of an entry's lemma.
+  public int getLemma(int part, int number) {
+    if (forms[part].get(number) == BASE) {
+      return number;
+    }
+    return dictionary.find(part, findLemma(dictionary.getWord(part, number), part));
+  }
+
+  //The inflection of an entry.
+  public int getForm(int part, int number) {
+    return forms[part].get(number);
+  }
+
+  //The inflection of every entry of a part of speech, one byte each, as DictionaryCompiler stores them.
+  //A read-only view of the shared bytes, with a position of its own.
+  public ByteBuffer getForms(int part) {
+    return forms[part].asReadOnlyBuffer();
+  }
+
+  //Every entry number of one part of speech and inflection. Shared, so do not change it.
+  public int[] getPool(int part, int form) {
+    int[][] pool = pools.get(part);
+    if (pool == null) {                                 //First draw from this part of speech.
+      pool = gather(part);
+      if (!pools.compareAndSet(part, null, pool)) {     //Another thread got there first; use theirs.
+        pool = pools.get(part);
+      }
+    }
+    return pool[form];
+  }
+
+  public static String formName(int form) {
+    return NAMES[form];
+  }
+
+
+  //Work out the inflection of every entry of a part of speech from its ending.
+  private ByteBuffer classify(int part) {
+    ByteBuffer classified = ByteBuffer.allocateDirect(dictionary.size(part));
+    for (int number = 0; number < dictionary.size(part); number++) {
+      String word = dictionary.getWord(part, number);
+      if (findLemma(word, part) != null) {
+        classified.put(number, (byte) formOfEnding(word, part));
+      }
+    }
+    return classified;
+  }
+
+  //Sort the entries of a part of speech into one list per inflection.
+  private int[][] gather(int part) {
+    IntList[] members = new IntList[FORMS];
+    for (int form = 0; form < FORMS; form++) {
+      members[form] = new IntList();
+    }
+    for (int number = 0; number < dictionary.size(part); number++) {
+      members[forms[part].get(number)].add(number);
+    }
+    int[][] pool = new int[FORMS][];
+    for (int form = 0; form < FORMS; form++) {
+      pool[form] = members[form].toArray();
+    }
+    return pool;
+  }
+
+  //The lemma left when a regular ending is taken off word, if that lemma is in the same list, or null.
+  private String findLemma(String word, int part) {
+    int n = word.length();
+    if (part == NOUN || part == VERB) {
+      if (word.endsWith("ies") && n > 4 && has(word.substring(0, n - 3) + "y", part)) {
+        return word.substring(0, n - 3) + "y";
+      }
+      if (word.endsWith("es") && n > 3 && has(word.substring(0, n - 2), part)) {
+        return word.substring(0, n - 2);
+      }
+      if (word.endsWith("s") && !word.endsWith("ss") && n > 2 && has(word.substring(0, n - 1), part)) {
+        return word.substring(0, n - 1);
+      }
+    }
+    if (part == VERB) {
+      if (word.endsWith("ied") && n > 4 && has(word.substring(0, n - 3) + "y", part)) {
+        return word.substring(0, n - 3) + "y";
+      }
+      if (word.endsWith("ed") && n > 3) {
+        return removeEnding(word, 2, part);
+      }
+      if (word.endsWith("ing") && n > 4) {
+        return removeEnding(word, 3, part);
+      }
+    }
+    if (part == ADJECTIVE) {
+      if (word.endsWith("iest") && n > 5 && has(word.substring(0, n - 4) + "y", part)) {
+        return word.substring(0, n - 4) + "y";
+      }
+      if (word.endsWith("ier") && n > 4 && has(word.substring(0, n - 3) + "y", part)) {
+        return word.substring(0, n - 3) + "y";
+      }
+      if (word.endsWith("est") && n > 4) {
+        return removeEnding(word, 3, part);
+      }
+      if (word.endsWith("er") && n > 3) {
+        return removeEnding(word, 2, part);
+      }
+    }
+    return null;
+  }
+
+  //Take an ending off, trying the plain stem, the stem with its e put back, and the stem with a doubled
+  //consonant undone (bake-d, bak-ing, stopp-ed, bigg-est).
+  private String removeEnding(String word, int ending, int part) {
+    String stem = word.substring(0, word.length() - ending);
+    if (has(stem, part)) {
+      return stem;
+    }
+    if (has(stem + "e", part)) {
+      return stem + "e";
+    }
+    int n = stem.length();
+    if (n > 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && has(stem.substring(0, n - 1), part)) {
+      return stem.substring(0, n - 1);
+    }
+    return null;
+  }
+
+  //The form a word's ending makes it, once findLemma has said it has one.
+  private static int formOfEnding(String word, int part) {
+    if (part == NOUN) {
+      return PLURAL;
+    }
+    if (part == ADJECTIVE) {
+      return word.endsWith("est") ? SUPERLATIVE : COMPARATIVE;
+    }
+    if (word.endsWith("ing")) {
+      return GERUND;
+    }
+    if (word.endsWith("ed")) {
+      return PAST;
+    }
+    return THIRD_PERSON;
+  }
+
+  //Whether word is listed for the given part of speech.
+  private boolean has(String word, int part) {
+    return (tags.lookup(word) & PartOfSpeechTable.bit(part)) != 0;
+  }
+
+}
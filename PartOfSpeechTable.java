@@ -0,0 +1,289 @@
+/* Class: PartOfSpeechTable
+ * Date: 10/18/26
+ * Description: A single hash table over every word in the dictionary that answers "which parts of speech
+ * is this word?" with one probe. The answer is a bitmask (NOUN | ADJECTIVE | VERB), so a word listed in
+ * several dictionaries, like "run" (a noun and a verb), keeps all of its parts of speech instead of
+ * only the first one found. The table is open addressing with linear probing, and each slot only holds
+ * a reference to an entry of the BinaryDictionary, so no String is made for a dictionary word.
+ *
+ * A second table of the same shape is keyed on case-folded words, so "The" at the start of a sentence
+ * still finds "the". lookup() tries the exact token first, then its core without the punctuation around
+ * it, then the folded core (see WordNormalizer), hashing and comparing over the token's own characters.
+ *
+ * Building the tables means hashing every entry twice, so DictionaryCompiler does it once and stores them
+ * in the compiled file. Given a dictionary with stored tables, the table reads them where they lie in the
+ * mapped file; otherwise it builds them in a direct buffer laid out the same way. Either way they live off
+ * the Java heap, so a long-running process has nothing of the dictionary for the garbage collector to copy
+ * or scan, however many documents it works on.
+ *
+ * Accessors:
+ * lookup(CharSequence word), slotOf(CharSequence word), slotOf(CharSequence word, int part), slotOf(int part, int number),
+ * numbersOf(CharSequence word, int part), maskAt(int slot),
+ * numberOf(int slot, int part), size(), capacity(), capacityFor(int words), bit(int part), firstPart(int mask),
+ * writeTo(ByteBuffer out, int at)
+ */
+
+import java.nio.*;
+
+public class PartOfSpeechTable {
+
+  public static final int NOUN = 1;
+  public static final int ADJECTIVE = 2;
+  public static final int VERB = 4;
+
+  private BinaryDictionary dictionary;
+  private ByteBuffer table;   //Both tables, off the heap, in the order below (see BinaryDictionary.tableView).
+  private int refs;           //Where the ints (part << 24 | number) + 1 for the first entry of each word (0 for an empty slot) start.
+  private int foldedRefs;     //The same, keyed on case-folded words.
+  private int masks;          //Where the bytes holding the parts of speech of the word in each slot start.
+  private int foldedMasks;    //The parts of speech of every case variant of the word in each slot.
+  private int capacity;       //Number of slots in each table.
+  private int mask;           //capacity - 1, for wrapping around the table.
+  private int size;
+
+
+  //CONSTRUCTORS
+  //Use the tables stored with the dictionary, or if it has none, hash every entry of the dictionary, merging
+  //words that appear in more than one part of speech.
+  public PartOfSpeechTable(BinaryDictionary dictionary) {
+    this.dictionary = dictionary;
+    int total = 0;
+    for (int part = 0; part < 3; part++) {
+      total += dictionary.size(part);
+    }
+    capacity = capacityFor(total);
+    mask = capacity - 1;
+    refs = 0;
+    foldedRefs = 4 * capacity;
+    masks = 8 * capacity;
+    foldedMasks = 9 * capacity;
+
+    if (dictionary.tableCapacity() == capacity) {          //Worked out by DictionaryCompiler already.
+      table = dictionary.tableView();
+      for (int slot = 0; slot < capacity; slot++) {
+        if (table.getInt(refs + 4 * slot) != 0) {
+          size++;
+        }
+      }
+      return;
+    }
+    table = ByteBuffer.allocateDirect(10 * capacity);      //Starts out all zeroes: every slot empty.
+    for (int part = 0; part < 3; part++) {
+      for (int number = 0; number < dictionary.size(part); number++) {
+        size += insert(refs, masks, part, number, false);
+        insert(foldedRefs, foldedMasks, part, number, true);
+      }
+    }
+  }
+
+
+  //ACCESSORS
+  //The parts of speech of word as a bitmask, or 0 if it is not in the dictionary, even ignoring case
+  //and surrounding punctuation. A word found only by ignoring case gets the parts of speech of all its case
+  //variants together ("BILL" is a noun and a verb, though "Bill" is only a noun).
+  public int lookup(CharSequence word) {
+    int slot = exactSlot(word);
+    if (slot >= 0) {
+      return table.get(masks + slot);
+    }
+    slot = foldedSlot(word);
+    if (slot >= 0) {
+      return table.get(foldedMasks + slot);
+    }
+    return 0;
+  }
+
+  //The slot of the dictionary word that word matches (tried the same way as lookup()), or -1 if none.
+  //Slots are numbered 0 to capacity() - 1, so other tables (see MorphologyIndex) can keep more facts
+  //about each word in arrays of that size. For a word found only by ignoring case this is the slot of the
+  //first case variant listed, which stands in for the rest; use slotOf(word, part) to ask about one part.
+  public int slotOf(CharSequence word) {
+    int slot = exactSlot(word);
+    if (slot >= 0) {
+      return slot;
+    }
+    slot = foldedSlot(word);
+    if (slot < 0) {
+      return -1;
+    }
+    int ref = table.getInt(foldedRefs + 4 * slot) - 1;
+    return slotOf(ref >>> 24, ref & 0xFFFFFF);
+  }
+
+  //Like slotOf(word), except that for a word found only by ignoring case it picks a case variant listed
+  //for part if there is one, so numberOf(slotOf(word, part), part) agrees with lookup(word).
+  public int slotOf(CharSequence word, int part) {
+    int slot = slotOf(word);
+    if (slot < 0 || (table.get(masks + slot) & bit(part)) != 0 || exactSlot(word) >= 0) {
+      return slot;
+    }
+    int[] numbers = numbersOf(word, part);
+    return numbers.length > 0 ? slotOf(part, numbers[0]) : slot;
+  }
+
+  //Every entry number of a part of speech that word names, the way lookup() finds it: the word itself if it
+  //is listed exactly (as this part or not), and otherwise each of its case variants listed for part.
+  public int[] numbersOf(CharSequence word, int part) {
+    int slot = exactSlot(word);
+    if (slot >= 0) {
+      int number = numberOf(slot, part);
+      return number < 0 ? new int[0] : new int[] {number};
+    }
+    slot = foldedSlot(word);
+    if (slot < 0 || (table.get(foldedMasks + slot) & bit(part)) == 0) {
+      return new int[0];
+    }
+    IntList found = new IntList();
+    findVariants(part, word, WordNormalizer.coreStart(word), WordNormalizer.coreEnd(word), new StringBuilder(), found);
+    return found.toArray();
+  }
+
+  //The slot of a dictionary entry.
+  public int slotOf(int part, int number) {
+    int slot = dictionary.hash(part, number) & mask;
+    while (!sameWord(part, number, table.getInt(refs + 4 * slot) - 1, false)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  //The parts of speech of the word in a slot.
+  public int maskAt(int slot) {
+    return table.get(masks + slot);
+  }
+
+  //The entry number of the word in a slot within a part of speech, or -1 if it is not that part of speech.
+  public int numberOf(int slot, int part) {
+    if ((table.get(masks + slot) & bit(part)) == 0) {
+      return -1;
+    }
+    int ref = table.getInt(refs + 4 * slot) - 1;
+    if (ref >>> 24 == part) {
+      return ref & 0xFFFFFF;
+    }
+    return dictionary.find(part, ref >>> 24, ref & 0xFFFFFF);  //Listed in an earlier part first, so look it up.
+  }
+
+  //Number of slots, used or not.
+  public int capacity() {
+    return capacity;
+  }
+
+  //Number of distinct words in the table.
+  public int size() {
+    return size;
+  }
+
+  //Number of slots for a table of the given number of dictionary entries: a power of two, at most half full.
+  public static int capacityFor(int words) {
+    return Integer.highestOneBit(Math.max(words, 1) * 2 - 1) << 1;
+  }
+
+  //Store both tables at a position of out, in the layout BinaryDictionary.tableView expects.
+  public void writeTo(ByteBuffer out, int at) {
+    out.put(at, table, 0, 10 * capacity);
+  }
+
+  //The mask bit for a dictionary part number (0 = noun, 1 = adjective, 2 = verb).
+  public static int bit(int part) {
+    return 1 << part;
+  }
+
+  //The first part number set in a mask, in noun, adjective, verb order, or -1 if the mask is empty.
+  public static int firstPart(int mask) {
+    if (mask == 0) {
+      return -1;
+    }
+    return Integer.numberOfTrailingZeros(mask);
+  }
+
+
+  //The slot in the exact table of word, or of its core without the punctuation around it, or -1.
+  private int exactSlot(CharSequence word) {
+    int slot = find(refs, word, 0, word.length(), false);
+    if (slot >= 0) {
+      return slot;
+    }
+    int start = WordNormalizer.coreStart(word);
+    int end = WordNormalizer.coreEnd(word);
+    if (start >= end || (start == 0 && end == word.length())) {
+      return -1;
+    }
+    return find(refs, word, start, end, false);
+  }
+
+  //The slot in the case-folded table of word's core, or -1.
+  private int foldedSlot(CharSequence word) {
+    int start = WordNormalizer.coreStart(word);
+    int end = WordNormalizer.coreEnd(word);
+    if (start >= end) {
+      return -1;
+    }
+    return find(foldedRefs, word, start, end, true);
+  }
+
+  //Add to found every entry of part that is the characters at..to of word in any case, after prefix (the
+  //characters before at, in the case chosen so far). Tries both cases of each character in turn and drops a
+  //branch as soon as no entry starts with it, so only the few prefixes the dictionary has are followed.
+  private void findVariants(int part, CharSequence word, int at, int to, StringBuilder prefix, IntList found) {
+    int number = dictionary.find(part, prefix);
+    if (at == to) {
+      if (number >= 0) {
+        found.add(number);
+      }
+      return;
+    }
+    if (number < 0) {
+      number = -number - 1;                                       //The first entry after prefix.
+    }
+    if (number >= dictionary.size(part) || !dictionary.startsWith(part, number, prefix)) {
+      return;
+    }
+    char lower = WordNormalizer.fold(word.charAt(at));
+    char upper = Character.toUpperCase(lower);
+    int length = prefix.length();
+    prefix.append(upper);                                        //Capitals sort first, so the results do too.
+    findVariants(part, word, at + 1, to, prefix, found);
+    if (upper != lower) {
+      prefix.setCharAt(length, lower);
+      findVariants(part, word, at + 1, to, prefix, found);
+    }
+    prefix.setLength(length);
+  }
+
+  //Add an entry to one of the tables. Returns 1 if it took a new slot, 0 if its word was already there.
+  private int insert(int tableRefs, int tableMasks, int part, int number, boolean fold) {
+    int slot = dictionary.hash(part, number, fold) & mask;
+    int ref;
+    while ((ref = table.getInt(tableRefs + 4 * slot)) != 0 && !sameWord(part, number, ref - 1, fold)) {
+      slot = (slot + 1) & mask;
+    }
+    int added = 0;
+    if (ref == 0) {
+      table.putInt(tableRefs + 4 * slot, (part << 24 | number) + 1);
+      added = 1;
+    }
+    table.put(tableMasks + slot, (byte) (table.get(tableMasks + slot) | bit(part)));
+    return added;
+  }
+
+  //The slot in one of the tables holding the characters from..to of word, or -1.
+  private int find(int tableRefs, CharSequence word, int from, int to, boolean fold) {
+    int slot = BinaryDictionary.hash(word, from, to, fold) & mask;
+    int ref;
+    while ((ref = table.getInt(tableRefs + 4 * slot)) != 0) {
+      ref--;
+      if (dictionary.matches(ref >>> 24, ref & 0xFFFFFF, word, from, to, fold)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  //Whether an entry is the same word as the one a slot reference points at.
+  private boolean sameWord(int part, int number, int ref, boolean fold) {
+    return dictionary.sameWord(part, number, ref >>> 24, ref & 0xFFFFFF, fold);
+  }
+
+}
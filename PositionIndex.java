@@ -0,0 +1,228 @@
+/* Class: PositionIndex
+ * Date: 10/18/26
+ * Description: Builds the word -> positions map that LibLibrary uses as its index, in a single pass over
+ * scrublist. Tokens are IDs into the document's SymbolTable, so each distinct word is looked up in the
+ * dictionary only the first time its ID comes up, and every later copy of it just appends its position
+ * to that ID's IntList. This replaces the old setIndex/findArrayIndexes/getLibSize approach, which copied
+ * and sorted scrublist once per token and rescanned it twice per word.
+ * Tokens that only differ by case or surrounding punctuation ("Dog", "dog" and "\"dog!") are all the same
+ * dictionary word (see PartOfSpeechTable.slotOf), so they share one IntList and count as one word.
+ *
+ * Large documents can be indexed on a ForkJoinPool instead. The token array is cut into chunks; each
+ * chunk marks its distinct IDs, the distinct IDs are tagged in parallel against the read-only Lexicon,
+ * then each chunk counts its positions per word and, knowing how many each earlier chunk found, copies
+ * them straight into their place in the final arrays. The result is the same as the single-threaded
+ * pass, positions in ascending order, however the chunks are scheduled.
+ *
+ * Accessors:
+ * size(), getPositions(String word), getPositions(int id), toHashMap()
+ */
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class PositionIndex {
+
+  public static final int MIN_CHUNK = 1 << 16;  //Fewest tokens worth handing to a thread of their own.
+
+  private SymbolTable symbols;
+  private IntList[] postings;  //Positions of each symbol ID, or null if it is not a dictionary word.
+  private int size;            //Number of distinct IntLists in postings.
+
+
+  //CONSTRUCTORS
+  //Index every token of list (IDs in symbols) that the given library can find in its dictionary.
+  public PositionIndex(int[] list, SymbolTable symbols, LibLibrary lib) {
+    this.symbols = symbols;
+    postings = new IntList[symbols.size()];
+    boolean[] checked = new boolean[symbols.size()];       //IDs we have already asked the dictionary about.
+    PartOfSpeechTable tags = lib.getLexicon().getTags();
+    HashMap<Integer, IntList> bySlot = new HashMap<Integer, IntList>();
+    for (int i = 0; i < list.length; i++) {
+      int id = list[i];
+      if (!checked[id]) {                                  //First time we have seen this word...
+        checked[id] = true;
+        String word = symbols.get(id);
+        if (lib.isItInDic(word) > 0) {                     //...so ask the dictionary about it, once.
+          Integer slot = tags.slotOf(word);                //The dictionary word it matched, whatever its case.
+          postings[id] = bySlot.get(slot);
+          if (postings[id] == null) {
+            postings[id] = new IntList();
+            bySlot.put(slot, postings[id]);
+            size++;
+          }
+        }
+      }
+      if (postings[id] != null) {
+        postings[id].add(i);                               //Positions go in ascending order.
+      }
+    }
+  }
+
+
+  //Index list the same way, spreading the work over a pool. Every thread only reads the Lexicon.
+  public PositionIndex(final int[] list, final SymbolTable symbols, final LibLibrary lib, ForkJoinPool pool) {
+    this.symbols = symbols;
+    postings = new IntList[symbols.size()];
+    final int chunks = (int) Math.max(1, Math.min(pool.getParallelism() * 2L, list.length / MIN_CHUNK));
+    final int step = (list.length + chunks - 1) / Math.max(chunks, 1);
+
+    final boolean[] seen = new boolean[symbols.size()];    //Every chunk only ever writes true, so races are harmless.
+    pool.invoke(new Chunks(0, chunks, new Pass() {
+      void run(int chunk) {
+        for (int i = chunk * step; i < Math.min(list.length, (chunk + 1) * step); i++) {
+          seen[list[i]] = true;
+        }
+      }
+    }));
+
+    final int[] slotOfId = new int[symbols.size()];         //The dictionary slot of each ID, or -1.
+    final PartOfSpeechTable tags = lib.getLexicon().getTags();
+    final int idStep = Math.max(1, (symbols.size() + chunks - 1) / chunks);
+    pool.invoke(new Chunks(0, chunks, new Pass() {
+      void run(int chunk) {
+        for (int id = chunk * idStep; id < Math.min(slotOfId.length, (chunk + 1) * idStep); id++) {
+          slotOfId[id] = -1;
+          if (seen[id] && lib.isItInDic(symbols.get(id)) > 0) {
+            slotOfId[id] = tags.slotOf(symbols.get(id));
+          }
+        }
+      }
+    }));
+
+    final int[] groupOf = new int[symbols.size()];          //Number each word once, in ID order.
+    HashMap<Integer, Integer> bySlot = new HashMap<Integer, Integer>();
+    for (int id = 0; id < groupOf.length; id++) {
+      groupOf[id] = -1;
+      if (slotOfId[id] >= 0) {
+        Integer group = bySlot.get(slotOfId[id]);
+        if (group == null) {
+          group = bySlot.size();
+          bySlot.put(slotOfId[id], group);
+        }
+        groupOf[id] = group;
+      }
+    }
+    size = bySlot.size();
+
+    final int[][] counts = new int[chunks][size];           //How many positions of each word each chunk holds.
+    pool.invoke(new Chunks(0, chunks, new Pass() {
+      void run(int chunk) {
+        int[] count = counts[chunk];
+        for (int i = chunk * step; i < Math.min(list.length, (chunk + 1) * step); i++) {
+          int group = groupOf[list[i]];
+          if (group >= 0) {
+            count[group]++;
+          }
+        }
+      }
+    }));
+
+    final int[][] positions = new int[size][];
+    for (int group = 0; group < size; group++) {            //Turn the counts into where each chunk starts writing.
+      int total = 0;
+      for (int chunk = 0; chunk < chunks; chunk++) {
+        int count = counts[chunk][group];
+        counts[chunk][group] = total;
+        total += count;
+      }
+      positions[group] = new int[total];
+    }
+    pool.invoke(new Chunks(0, chunks, new Pass() {
+      void run(int chunk) {
+        int[] next = counts[chunk];
+        for (int i = chunk * step; i < Math.min(list.length, (chunk + 1) * step); i++) {
+          int group = groupOf[list[i]];
+          if (group >= 0) {
+            positions[group][next[group]++] = i;
+          }
+        }
+      }
+    }));
+
+    IntList[] lists = new IntList[size];
+    for (int id = 0; id < groupOf.length; id++) {
+      if (groupOf[id] >= 0) {
+        if (lists[groupOf[id]] == null) {
+          lists[groupOf[id]] = new IntList(positions[groupOf[id]]);
+        }
+        postings[id] = lists[groupOf[id]];
+      }
+    }
+  }
+
+
+  //ACCESSORS
+  //Number of unique dictionary words found, which is what getLibSize() reports.
+  public int size() {
+    return size;
+  }
+
+  //The positions of the given word, or null if it was not indexed.
+  public IntList getPositions(String word) {
+    int id = symbols.find(word);
+    if (id < 0 || id >= postings.length) {
+      return null;
+    }
+    return postings[id];
+  }
+
+  //The positions of the given symbol ID, or null if it was not indexed.
+  public IntList getPositions(int id) {
+    if (id >= postings.length) {
+      return null;
+    }
+    return postings[id];
+  }
+
+  //Convert to the HashMap<String, int[]> form that LibLibrary and MadLiberator share. Every spelling of
+  //a word maps to the very same int[], which is how LibLibrary and LibDocument tell that they belong together.
+  public HashMap<String, int[]> toHashMap() {
+    HashMap<String, int[]> hm = new HashMap<String, int[]>(size * 2);
+    IdentityHashMap<IntList, int[]> arrays = new IdentityHashMap<IntList, int[]>();
+    for (int id = 0; id < postings.length; id++) {
+      if (postings[id] != null) {
+        int[] positions = arrays.get(postings[id]);
+        if (positions == null) {
+          positions = postings[id].toArray();
+          arrays.put(postings[id], positions);
+        }
+        hm.put(symbols.get(id), positions);
+      }
+    }
+    return hm;
+  }
+
+
+
+  //One pass of the parallel build: the work for a single chunk.
+  private static abstract class Pass {
+    abstract void run(int chunk);
+  }
+
+  //Run a pass over chunks lo..hi, halving the range until each task holds a single chunk.
+  private static class Chunks extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private int lo;
+    private int hi;
+    private Pass pass;
+
+    Chunks(int lo, int hi, Pass pass) {
+      this.lo = lo;
+      this.hi = hi;
+      this.pass = pass;
+    }
+
+    protected void compute() {
+      if (hi - lo <= 1) {
+        if (lo < hi) {
+          pass.run(lo);
+        }
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      invokeAll(new Chunks(lo, mid, pass), new Chunks(mid, hi, pass));
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+/* Class: ReplacementCache
+ * Date: 10/18/26
+ * Description: Remembers which replacement each source word got, so a streamed document stays consistent
+ * without holding it in memory (see StreamLiberator). Keys are small ints, the PartOfSpeechTable slot of
+ * the source word, so the replacements are simply an array indexed by slot. Its size is fixed by the
+ * dictionary: one reference per slot (a few MB), plus one String per distinct dictionary word the input
+ * actually uses, and never more than the dictionary has. Nothing has to be evicted, spilled to disk or
+ * read back, so every lookup is one array read.
+ *
+ * Mutators:
+ * put(int key, String word), clear()
+ *
+ * Accessors:
+ * get(int key), size()
+ */
+
+import java.util.*;
+
+public class ReplacementCache {
+
+  private final String[] words;                         //[key] -> its replacement, or null for none yet.
+  private int size;
+
+
+  //CONSTRUCTORS
+  //A cache for keys 0 to keys - 1.
+  public ReplacementCache(int keys) {
+    this.words = new String[keys];
+  }
+
+
+  //MUTATORS
+  //Remember the replacement for a key.
+  public void put(int key, String word) {
+    if (words[key] == null) {
+      size++;
+    }
+    words[key] = word;
+  }
+
+  //Forget every replacement.
+  public void clear() {
+    Arrays.fill(words, null);
+    size = 0;
+  }
+
+
+  //ACCESSORS
+  //The replacement for a key, or null if it has none yet.
+  public String get(int key) {
+    return words[key];
+  }
+
+  //How many keys have a replacement.
+  public int size() {
+    return size;
+  }
+
+}
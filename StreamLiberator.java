@@ -0,0 +1,119 @@
+/* Class: StreamLiberator
+ * Date: 10/18/26
+ * Description: Autofills a document of any size in one pass. LibLibrary keeps the whole document in
+ * scrublist and builds an index before anything is written, so a file has to fit in the heap. This reads
+ * one token at a time with a Tokenizer, picks a replacement the first time each dictionary word turns up,
+ * and writes the result straight out through a LibRenderer. Every later copy of the word (in any case,
+ * see PartOfSpeechTable.slotOf) gets the same replacement, looked up in a ReplacementCache indexed by the
+ * word's slot. Memory use depends on the dictionary, not on the input, so multi-GB corpora stream through.
+ * Usage: java MadLiberator -stream <input file> [output file] [seed]
+ *
+ * Mutators:
+ * liberate(Reader in, Writer out)
+ *
+ * Accessors:
+ * getTokens(), getReplaced(), getCache()
+ */
+
+import java.io.*;
+
+public class StreamLiberator {
+
+  private final Lexicon lexicon;
+  private final PartOfSpeechTable tags;
+  private final WordSampler sampler;
+  private final ReplacementCache cache;
+  private long tokens;
+  private long replaced;
+
+
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("Usage: java MadLiberator -stream <input file> [output file] [seed]");
+      return;
+    }
+    File input = new File(args[0]);
+    String output = new File(input.getAbsoluteFile().getParentFile(), "Mad " + input.getName()).getPath();
+    if (args.length > 1) {
+      output = args[1];
+    }
+    WordSampler sampler = new WordSampler(Lexicon.getInstance());
+    if (args.length > 2) {
+      sampler = new WordSampler(Lexicon.getInstance(), Long.parseLong(args[2]));
+    }
+
+    StreamLiberator liberator = new StreamLiberator(Lexicon.getInstance(), sampler);
+    long start = System.nanoTime();
+    try (Reader in = new FileReader(input); Writer out = new BufferedWriter(new FileWriter(output))) {
+      liberator.liberate(in, out);
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to liberate " + input + ": " + e.getMessage());
+    }
+    System.out.printf("Replaced %d of %d tokens into %s in %.1f s (%d distinct words).%n", liberator.getReplaced(),
+                      liberator.getTokens(), output, (System.nanoTime() - start) / 1e9, liberator.getCache().size());
+    if (LibMetrics.getInstance().isEnabled()) {
+      System.out.println(LibMetrics.getInstance().toJson());
+    }
+  }
+
+
+  //CONSTRUCTORS
+  public StreamLiberator(Lexicon lexicon, WordSampler sampler) {
+    this.lexicon = lexicon;
+    this.tags = lexicon.getTags();
+    this.sampler = sampler;
+    this.cache = new ReplacementCache(tags.capacity());
+  }
+
+
+  //MUTATORS
+  //Read every token from in, replace the dictionary words and write the result to out. Neither is closed.
+  public void liberate(Reader in, Writer out) {
+    Tokenizer tokenizer = new Tokenizer(in);
+    LibRenderer renderer = new LibRenderer(out);
+    long count = 0;
+    long words = 0;
+    while (tokenizer.hasNext()) {
+      String token = tokenizer.next();
+      count++;
+      int mask = lexicon.lookup(token);
+      LibMetrics.lookup(mask);
+      if (mask == 0) {
+        renderer.write(token);
+        continue;
+      }
+      int slot = tags.slotOf(token);
+      String replacement = cache.get(slot);
+      if (replacement == null) {                        //First time we have seen this word, so pick its replacement.
+        int part = PartOfSpeechTable.firstPart(mask);
+        replacement = sampler.drawForm(part, lexicon.formOf(token, part));
+        cache.put(slot, replacement);
+      }
+      renderer.write(WordNormalizer.decorate(replacement, token));
+      words++;
+    }
+    renderer.flush();
+    tokens += count;
+    replaced += words;
+    LibMetrics.document((int) Math.min(count, Integer.MAX_VALUE));  //The histogram's last bucket holds anything bigger.
+    LibMetrics.replaced(words);
+  }
+
+
+  //ACCESSORS
+  //How many tokens have been read.
+  public long getTokens() {
+    return tokens;
+  }
+
+  //How many of them were replaced.
+  public long getReplaced() {
+    return replaced;
+  }
+
+  public ReplacementCache getCache() {
+    return cache;
+  }
+
+}
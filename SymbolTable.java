@@ -0,0 +1,98 @@
+/* Class: SymbolTable
+ * Date: 10/18/26
+ * Description: Gives every distinct token of a document a small int ID, so the document itself can be kept
+ * as an int[] instead of one String per token. A word that shows up a thousand times is stored once, and
+ * comparing two tokens is comparing two ints. intern() hashes straight over a CharSequence, so the
+ * Tokenizer can look a word up while it is still in its StringBuilder and only makes a String the first
+ * time a word is seen. IDs start at 0 and never change. A SymbolTable is not safe to change from more
+ * than one thread at a time.
+ *
+ * Mutators:
+ * intern(CharSequence word)
+ *
+ * Accessors:
+ * find(CharSequence word), get(int id), size(), resolve(int[] ids)
+ */
+
+import java.util.*;
+
+public class SymbolTable {
+
+  private String[] symbols = new String[64];  //ID -> word.
+  private int size;
+  private int[] slots = new int[128];         //Hash table of ID + 1, 0 for an empty slot. Never more than half full.
+
+
+  //MUTATORS
+  //The ID of word, adding it to the table if this is the first time it has been seen.
+  public int intern(CharSequence word) {
+    int slot = slotOf(word);
+    if (slots[slot] != 0) {
+      return slots[slot] - 1;
+    }
+    if (size == symbols.length) {
+      symbols = Arrays.copyOf(symbols, size * 2);
+    }
+    int id = size++;
+    symbols[id] = word.toString();
+    slots[slot] = id + 1;
+    if (size * 2 > slots.length) {
+      rehash();
+    }
+    return id;
+  }
+
+
+  //ACCESSORS
+  //The ID of word, or -1 if it has never been interned.
+  public int find(CharSequence word) {
+    return slots[slotOf(word)] - 1;
+  }
+
+  //The word with the given ID.
+  public String get(int id) {
+    if (id >= size) {
+      throw new IndexOutOfBoundsException("No symbol " + id + " (" + size + " symbols).");
+    }
+    return symbols[id];
+  }
+
+  //How many distinct words have been interned.
+  public int size() {
+    return size;
+  }
+
+  //Turn a list of IDs back into words.
+  public String[] resolve(int[] ids) {
+    String[] words = new String[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      words[i] = symbols[ids[i]];
+    }
+    return words;
+  }
+
+
+  //The slot that holds word, or the empty slot where it would go.
+  private int slotOf(CharSequence word) {
+    int mask = slots.length - 1;
+    int slot = BinaryDictionary.hash(word) & mask;
+    while (slots[slot] != 0 && !symbols[slots[slot] - 1].contentEquals(word)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  //Double the hash table and put every ID back in.
+  private void rehash() {
+    slots = new int[slots.length * 2];
+    int mask = slots.length - 1;
+    for (int id = 0; id < size; id++) {
+      int slot = BinaryDictionary.hash(symbols[id]) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = id + 1;
+    }
+  }
+
+}
@@ -0,0 +1,446 @@
+/* Class: TemplateCache
+ * Date: 10/18/26
+ * Description: Keeps parsed and tagged templates on local disk, so a text that has been liberated before
+ * does not have to be tokenized and tagged again. An entry is keyed by the SHA-256 of the text's bytes, the
+ * charset they were decoded with and the entry format version (the same bytes read as another charset make
+ * other tokens), and holds everything scrubList() and setIndex() work out: the document's distinct words, its tokens as IDs,
+ * and every slot with its part of speech, inflection, spellings and positions. Later runs map the entry
+ * file and read the arrays straight out of it. The least recently used entries are deleted whenever the
+ * cache grows past its size limit; a file's modification time records when it was last used, so the
+ * order survives restarts. Entries are written to a temporary file and then moved into place, so
+ * several threads or processes can share a cache directory; a temporary file left behind by a failed
+ * write is deleted, and any a crashed process left are swept when the cache is next opened.
+ *
+ * An entry file is laid out as:
+ *
+ *   int magic, int version, int dictionary stamp, int symbols, int tokens, int slots
+ *   for each symbol: int length, that many bytes of UTF-8
+ *   int token[tokens]
+ *   for each slot: byte part, byte form, int spellings, int id[spellings], int positions, int position[positions]
+ *
+ * The dictionary stamp is a CRC32 of the whole compiled dictionary (words, tables and inflections), so any
+ * change to it, even retagging one word, makes every entry tagged against the old one be ignored.
+ * Start the JVM with -Dmadlib.cache=<directory> (and optionally -Dmadlib.cache.mb=<size>, 64 by default) to
+ * have BatchLiberator and LibServer use one.
+ *
+ * Mutators:
+ * load(String inputfilename), load(byte[] content, Charset charset), loadDocument(String inputfilename), setWriter(Executor writer), clear()
+ *
+ * Accessors:
+ * fromProperties(Lexicon lexicon), key(byte[] content, Charset charset), getHits(), getMisses(), getEntryCount(), getDiskSize()
+ */
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class TemplateCache {
+
+  public static final int MAGIC = 0x4D4C5450;  //"MLTP"
+  public static final int VERSION = 2;         //Part of every key too; bump it when Tokenizer or the layout changes.
+  public static final String SUFFIX = ".tpl";
+  public static final long DEFAULT_MB = 64;
+  public static final long STALE_TEMP_MS = 60 * 60 * 1000;  //A temporary file this old belongs to no live write.
+
+  private final Path dir;
+  private final long maxBytes;
+  private final Lexicon lexicon;
+  private final int stamp;                                                //Identifies the dictionary entries were tagged with.
+  private final LinkedHashMap<String, Long> entries =                     //File name -> size, least recently used first.
+      new LinkedHashMap<String, Long>(16, 0.75f, true);
+  private long total;                                                     //Bytes of all the entries.
+  private long hits;
+  private long misses;
+  private Executor writer;                                                //Writes new entries in the background, or null to write them in place.
+
+
+  //CONSTRUCTORS
+  //A cache in the given directory (created if need be) that keeps itself under maxBytes.
+  public TemplateCache(String directory, long maxBytes, Lexicon lexicon) {
+    this.dir = Paths.get(directory);
+    this.maxBytes = maxBytes;
+    this.lexicon = lexicon;
+    this.stamp = stampOf(lexicon);
+    ArrayList<File> files = new ArrayList<File>();
+    try {
+      Files.createDirectories(dir);
+      try (DirectoryStream<Path> found = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+        for (Path file : found) {
+          files.add(file.toFile());
+        }
+      }
+      long stale = System.currentTimeMillis() - STALE_TEMP_MS;
+      try (DirectoryStream<Path> found = Files.newDirectoryStream(dir, "tpl*.tmp")) {
+        for (Path file : found) {
+          if (file.toFile().lastModified() < stale) {                     //Not one another process is writing now.
+            file.toFile().delete();
+          }
+        }
+      }
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to open template cache " + directory + ": " + e.getMessage());
+    }
+    Collections.sort(files, new Comparator<File>() {                      //Oldest first, the order they would be evicted in.
+      public int compare(File a, File b) {
+        return Long.compare(a.lastModified(), b.lastModified());
+      }
+    });
+    for (File file : files) {
+      entries.put(file.getName(), file.length());
+      total += file.length();
+    }
+    trim(null);                                                           //In case the limit is lower than last time.
+  }
+
+  //The cache named by -Dmadlib.cache, or null if there is none.
+  public static TemplateCache fromProperties(Lexicon lexicon) {
+    String directory = System.getProperty("madlib.cache");
+    if (directory == null) {
+      return null;
+    }
+    long mb = Long.getLong("madlib.cache.mb", DEFAULT_MB);
+    return new TemplateCache(directory, mb << 20, lexicon);
+  }
+
+
+  //MUTATORS
+  //A LibLibrary for the named file, read from the cache if the file's contents are there, and otherwise
+  //tokenized, tagged and added to it. Like new LibLibrary(inputfilename, lexicon), but usually faster.
+  public LibLibrary load(String inputfilename) {
+    return load(read(inputfilename), Charset.defaultCharset());       //The charset Tokenizer reads files with.
+  }
+
+  //A LibLibrary for the given text, cached the same way.
+  public LibLibrary load(byte[] content, Charset charset) {
+    String name = key(content, charset) + SUFFIX;
+    Template template = fetch(name);
+    if (template == null) {
+      LibLibrary madlib = new LibLibrary(lexicon);
+      madlib.setScrubList(Tokenizer.tokenize(new InputStreamReader(new ByteArrayInputStream(content), charset)));
+      madlib.setIndex();
+      store(name, new Template(madlib, lexicon));
+      return madlib;
+    }
+    LibLibrary madlib = new LibLibrary(lexicon);
+    madlib.setDocument(template.tokens, template.symbols, template.index);
+    return madlib;
+  }
+
+  //A LibDocument for the named file, using the cached part of speech and inflection of each slot.
+  public LibDocument loadDocument(String inputfilename) {
+    byte[] content = read(inputfilename);
+    Charset charset = Charset.defaultCharset();                           //The charset Tokenizer reads files with.
+    String name = key(content, charset) + SUFFIX;
+    Template template = fetch(name);
+    if (template == null) {
+      LibLibrary madlib = new LibLibrary(lexicon);
+      madlib.setScrubList(Tokenizer.tokenize(new InputStreamReader(new ByteArrayInputStream(content), charset)));
+      madlib.setIndex();
+      template = new Template(madlib, lexicon);
+      store(name, template);
+    }
+    return new LibDocument(template.tokens, template.symbols, template.index, template.parts, template.forms, lexicon);
+  }
+
+  //Write new entries on writer instead of in the call that parsed them, so the caller (a server request,
+  //say) does not wait on the disk. The entry is encoded in the call, so the LibLibrary it came from can be
+  //filled right away. null goes back to writing in place.
+  public void setWriter(Executor writer) {
+    this.writer = writer;
+  }
+
+  //Delete every entry.
+  public synchronized void clear() {
+    for (String name : entries.keySet()) {
+      dir.resolve(name).toFile().delete();
+    }
+    entries.clear();
+    total = 0;
+  }
+
+
+  //ACCESSORS
+  //The key of some text read as charset: the hex SHA-256 of the entry format version, the charset's name
+  //and the text's bytes.
+  public static String key(byte[] content, Charset charset) {
+    try {
+      MessageDigest sha = MessageDigest.getInstance("SHA-256");
+      sha.update((VERSION + " " + charset.name() + "\n").getBytes(StandardCharsets.UTF_8));
+      byte[] digest = sha.digest(content);
+      StringBuilder hex = new StringBuilder(2 * digest.length);
+      for (int i = 0; i < digest.length; i++) {
+        hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+        hex.append(Character.forDigit(digest[i] & 0xF, 16));
+      }
+      return hex.toString();
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("SHA-256 is not available: " + e.getMessage());
+    }
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  //Bytes on disk taken by the entries.
+  public synchronized long getDiskSize() {
+    return total;
+  }
+
+
+  //The entry with the given file name, or null if there is none (or it is unreadable or stale).
+  private Template fetch(String name) {
+    synchronized (this) {
+      if (entries.get(name) == null) {                                   //get() also marks it most recently used.
+        misses++;
+        return null;
+      }
+      hits++;
+    }
+    Path file = dir.resolve(name);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      Template template = new Template(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), stamp);
+      file.toFile().setLastModified(System.currentTimeMillis());         //Remember the use across restarts.
+      return template;
+    }
+    catch (IOException | RuntimeException e) {                            //Deleted by another process, cut short, or stale.
+      synchronized (this) {
+        Long size = entries.remove(name);
+        if (size != null) {
+          total -= size;
+        }
+        hits--;
+        misses++;
+      }
+      file.toFile().delete();
+      return null;
+    }
+  }
+
+  //Write an entry (now, or on the writer if there is one), then evict the least recently used entries until
+  //the cache fits again.
+  private void store(final String name, Template template) {
+    final ByteBuffer encoded = template.encode(stamp);
+    Executor background = writer;
+    if (background == null) {
+      write(name, encoded);
+      return;
+    }
+    try {
+      background.execute(new Runnable() {
+        public void run() {
+          try {
+            write(name, encoded);
+          }
+          catch (RuntimeException e) {                                    //Nobody is waiting to hear; the entry is just not cached.
+            System.out.println(e.getMessage());
+          }
+        }
+      });
+    }
+    catch (RejectedExecutionException e) {                                //Shutting down, so skip it.
+    }
+  }
+
+  //Write an encoded entry into place and account for it.
+  private void write(String name, ByteBuffer encoded) {
+    Path file = dir.resolve(name);
+    Path temp = null;
+    try {
+      temp = Files.createTempFile(dir, "tpl", ".tmp");
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        while (encoded.hasRemaining()) {
+          channel.write(encoded);
+        }
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      if (temp != null) {
+        temp.toFile().delete();                                          //It is not counted in total, so do not leave it.
+      }
+      throw new RuntimeException("Failed to write " + file + ": " + e.getMessage());
+    }
+    synchronized (this) {
+      Long old = entries.put(name, (long) encoded.limit());
+      total += encoded.limit() - (old == null ? 0 : old);
+      trim(name);
+    }
+  }
+
+  //Delete the least recently used entries, except keep, until the cache is under its limit.
+  private synchronized void trim(String keep) {
+    Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+    while (total > maxBytes && eldest.hasNext()) {
+      Map.Entry<String, Long> entry = eldest.next();
+      if (entry.getKey().equals(keep)) {                                 //Never evict the one just written.
+        continue;
+      }
+      dir.resolve(entry.getKey()).toFile().delete();
+      total -= entry.getValue();
+      eldest.remove();
+    }
+  }
+
+  //Read a whole file.
+  private static byte[] read(String inputfilename) {
+    try {
+      return Files.readAllBytes(Paths.get(inputfilename));
+    }
+    catch (IOException e) {
+      throw new RuntimeException(inputfilename + " does not exist or is unreadable.");
+    }
+  }
+
+  //A number that changes whenever the dictionary does.
+  private static int stampOf(Lexicon lexicon) {
+    long crc = lexicon.getDictionary().checksum();
+    return (int) (crc ^ (crc >>> 32));
+  }
+
+
+  //One parsed and tagged text, as the cache reads and writes it.
+  private static class Template {
+    int[] tokens;
+    SymbolTable symbols;
+    HashMap<String, int[]> index;
+    int[] parts;                                                          //Per slot, in order of first appearance.
+    int[] forms;
+    int[][] spellings;                                                    //Per slot, the IDs that share its positions.
+    int[][] positions;
+
+    //Gather a freshly indexed LibLibrary's document.
+    Template(LibLibrary madlib, Lexicon lexicon) {
+      tokens = madlib.getScrubIds();
+      symbols = madlib.getSymbols();
+      index = madlib.getIndex();
+      IdentityHashMap<int[], Integer> slots = new IdentityHashMap<int[], Integer>();
+      ArrayList<IntList> ids = new ArrayList<IntList>();
+      boolean[] seen = new boolean[symbols.size()];
+      for (int i = 0; i < tokens.length; i++) {                           //Number slots the way LibDocument does.
+        if (seen[tokens[i]]) {
+          continue;
+        }
+        seen[tokens[i]] = true;
+        int[] found = index.get(symbols.get(tokens[i]));
+        if (found == null) {
+          continue;
+        }
+        Integer slot = slots.get(found);
+        if (slot == null) {
+          slot = slots.size();
+          slots.put(found, slot);
+          ids.add(new IntList());
+        }
+        ids.get(slot).add(tokens[i]);
+      }
+      int n = slots.size();
+      parts = new int[n];
+      forms = new int[n];
+      spellings = new int[n][];
+      positions = new int[n][];
+      for (int slot = 0; slot < n; slot++) {
+        spellings[slot] = ids.get(slot).toArray();
+        String word = symbols.get(spellings[slot][0]);
+        positions[slot] = index.get(word);
+        parts[slot] = PartOfSpeechTable.firstPart(lexicon.lookup(word));
+        forms[slot] = lexicon.formOf(word, parts[slot]);
+      }
+    }
+
+    //Read an entry file. Throws a RuntimeException if it is not one, or was tagged with another dictionary.
+    Template(ByteBuffer in, int stamp) {
+      if (in.getInt() != MAGIC || in.getInt() != VERSION || in.getInt() != stamp) {
+        throw new RuntimeException("Not a template for this dictionary.");
+      }
+      int symbolCount = in.getInt();
+      tokens = new int[in.getInt()];
+      int n = in.getInt();
+      symbols = new SymbolTable();
+      byte[] bytes = new byte[64];
+      for (int id = 0; id < symbolCount; id++) {                          //Interning in order gives back the same IDs.
+        int length = in.getInt();
+        if (length > bytes.length) {
+          bytes = new byte[Math.max(length, bytes.length * 2)];
+        }
+        in.get(bytes, 0, length);
+        symbols.intern(new String(bytes, 0, length, StandardCharsets.UTF_8));
+      }
+      in.asIntBuffer().get(tokens);
+      in.position(in.position() + 4 * tokens.length);
+      index = new HashMap<String, int[]>(n * 2);
+      parts = new int[n];
+      forms = new int[n];
+      spellings = new int[n][];
+      positions = new int[n][];
+      for (int slot = 0; slot < n; slot++) {
+        parts[slot] = in.get();
+        forms[slot] = in.get();
+        spellings[slot] = new int[in.getInt()];
+        in.asIntBuffer().get(spellings[slot]);
+        in.position(in.position() + 4 * spellings[slot].length);
+        positions[slot] = new int[in.getInt()];
+        in.asIntBuffer().get(positions[slot]);
+        in.position(in.position() + 4 * positions[slot].length);
+        for (int i = 0; i < spellings[slot].length; i++) {
+          index.put(symbols.get(spellings[slot][i]), positions[slot]);   //One shared array per slot, as setIndex makes.
+        }
+      }
+    }
+
+    //Lay the template out in the entry file format.
+    ByteBuffer encode(int stamp) {
+      byte[][] words = new byte[symbols.size()][];
+      int size = 4 * 6 + 4 * tokens.length;
+      for (int id = 0; id < words.length; id++) {
+        words[id] = symbols.get(id).getBytes(StandardCharsets.UTF_8);
+        size += 4 + words[id].length;
+      }
+      for (int slot = 0; slot < parts.length; slot++) {
+        size += 2 + 4 + 4 * spellings[slot].length + 4 + 4 * positions[slot].length;
+      }
+      ByteBuffer out = ByteBuffer.allocate(size);
+      out.putInt(MAGIC);
+      out.putInt(VERSION);
+      out.putInt(stamp);
+      out.putInt(words.length);
+      out.putInt(tokens.length);
+      out.putInt(parts.length);
+      for (int id = 0; id < words.length; id++) {
+        out.putInt(words[id].length);
+        out.put(words[id]);
+      }
+      out.asIntBuffer().put(tokens);
+      out.position(out.position() + 4 * tokens.length);
+      for (int slot = 0; slot < parts.length; slot++) {
+        out.put((byte) parts[slot]);
+        out.put((byte) forms[slot]);
+        out.putInt(spellings[slot].length);
+        for (int i = 0; i < spellings[slot].length; i++) {
+          out.putInt(spellings[slot][i]);
+        }
+        out.putInt(positions[slot].length);
+        out.asIntBuffer().put(positions[slot]);
+        out.position(out.position() + 4 * positions[slot].length);
+      }
+      out.flip();
+      return out;
+    }
+  }
+
+}
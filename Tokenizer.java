@@ -0,0 +1,191 @@
+/* Class: Tokenizer
+ * Date: 10/18/26
+ * Description: Splits text into the tokens LibLibrary works with, reading it a fixed-size chunk at a time.
+ * Words are separated by whitespace, and each of the punctuation marks , . ; : ( ) becomes a token of
+ * its own, all in a single pass over the characters. Only the current chunk and the word being built
+ * are held in memory, so the cost of reading a file is the chunk plus the tokens themselves, instead of
+ * several full copies of the text. With a SymbolTable, tokens come back as int IDs instead, and a String is
+ * only made the first time each distinct word is seen.
+ *
+ * Mutators:
+ * next(), nextId(SymbolTable symbols), close()
+ *
+ * Accessors:
+ * hasNext(), isPunctuation(char c), tokenize(Reader in), tokenize(String inputfilename),
+ * tokenize(Reader in, SymbolTable symbols), tokenize(String inputfilename, SymbolTable symbols)
+ */
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+
+public class Tokenizer implements Iterator<String> {
+
+  public static final int CHUNK_SIZE = 8192;
+
+  private Reader in;
+  private char[] chunk = new char[CHUNK_SIZE];
+  private int position;                             //Next unread character of chunk.
+  private int length;                               //Number of characters in chunk, or -1 at end of input.
+  private StringBuilder word = new StringBuilder();  //Reused for every word.
+  private boolean pending;                          //Whether word holds a token hasNext() found, waiting for next().
+
+
+  //CONSTRUCTORS
+  public Tokenizer(Reader in) {
+    this.in = in;
+  }
+  //Read from a channel, such as a FileChannel or a socket.
+  public Tokenizer(ReadableByteChannel channel) {
+    this(Channels.newReader(channel, Charset.defaultCharset().newDecoder(), CHUNK_SIZE));
+  }
+
+
+  //MUTATORS
+  //Return the next token, or throw NoSuchElementException if there are none left.
+  public String next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("End of input.");
+    }
+    pending = false;
+    return word.toString();
+  }
+
+  //Return the ID of the next token in symbols, or throw NoSuchElementException if there are none left.
+  public int nextId(SymbolTable symbols) {
+    if (!hasNext()) {
+      throw new NoSuchElementException("End of input.");
+    }
+    pending = false;
+    return symbols.intern(word);
+  }
+
+  //Close the underlying reader.
+  public void close() {
+    try {
+      in.close();
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+
+  //ACCESSORS
+  //Whether there is another token, reading more of the input if needed.
+  public boolean hasNext() {
+    if (!pending) {
+      pending = readToken();
+    }
+    return pending;
+  }
+
+  //The punctuation marks that are split off from the words around them.
+  public static boolean isPunctuation(char c) {
+    return c == ',' || c == '.' || c == ';' || c == ':' || c == '(' || c == ')';
+  }
+
+  //Read every token from in into an array, then close it.
+  public static String[] tokenize(Reader in) {
+    Tokenizer t = new Tokenizer(in);
+    ArrayList<String> tokens = new ArrayList<String>();
+    try {
+      while (t.hasNext()) {
+        tokens.add(t.next());
+      }
+    }
+    finally {
+      t.close();
+    }
+    return tokens.toArray(new String[tokens.size()]);
+  }
+
+  //Read every token from the named file into an array.
+  public static String[] tokenize(String inputfilename) {
+    return tokenize(open(inputfilename));
+  }
+
+  //Read every token from in as IDs in symbols, then close it.
+  public static int[] tokenize(Reader in, SymbolTable symbols) {
+    Tokenizer t = new Tokenizer(in);
+    IntList ids = new IntList(1024);
+    try {
+      while (t.hasNext()) {
+        ids.add(t.nextId(symbols));
+      }
+    }
+    finally {
+      t.close();
+    }
+    return ids.toArray();
+  }
+
+  //Read every token from the named file as IDs in symbols.
+  public static int[] tokenize(String inputfilename, SymbolTable symbols) {
+    return tokenize(open(inputfilename), symbols);
+  }
+
+
+  //Open a file for reading.
+  private static Reader open(String inputfilename) {
+    try {
+      return new FileReader(inputfilename);
+    }
+    catch (FileNotFoundException e) {
+      throw new RuntimeException(inputfilename + " does not exist or is unreadable.");
+    }
+  }
+
+
+  //Scan forward to the end of the next token and leave it in word. Returns false at the end of the input.
+  private boolean readToken() {
+    word.setLength(0);
+    while (true) {
+      if (position == length) {
+        if (!fill()) {
+          break;                                    //End of input: return whatever word we were building.
+        }
+      }
+      char c = chunk[position];
+      if (Character.isWhitespace(c)) {
+        position++;
+        if (word.length() > 0) {
+          break;
+        }
+      } else if (isPunctuation(c)) {
+        if (word.length() > 0) {
+          break;                                    //Leave the mark for the next call.
+        }
+        position++;
+        word.append(c);
+        return true;
+      } else {
+        word.append(c);
+        position++;
+      }
+    }
+    return word.length() > 0;
+  }
+
+  //Read the next chunk of input. Returns false at the end of the input.
+  private boolean fill() {
+    if (length < 0) {
+      return false;
+    }
+    try {
+      length = in.read(chunk, 0, chunk.length);
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+    position = 0;
+    if (length <= 0) {
+      length = -1;
+      position = -1;
+      return false;
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,258 @@
+/* Class: VariantGenerator
+ * Date: 10/18/26
+ * Description: Makes many filled copies (variants) of one mad lib in a single call. The text is read,
+ * tokenized and tagged once into a LibTemplate, and then a fixed pool of worker threads fills it over and
+ * over, each variant in a single pass with its own words. Workers take the next variant number as they
+ * come free and share nothing but the read-only template and lexicon, so the work spreads evenly and
+ * scales with the number of cores. Every variant gets its own WordSampler, split off the given one in
+ * variant order before any thread starts, so with a seeded sampler variant n always comes out the same,
+ * however many threads there are and however they are scheduled.
+ *
+ * Finished variants go to a Sink as they are made: toFiles() writes each to a file of its own, and
+ * toJsonLines() writes one JSON object per line, {"variant":n,"text":"..."}, to a single file, in variant
+ * order. Start the JVM with -Dmadlib.cache=<directory> to keep the tagged template between runs (see TemplateCache).
+ * Usage: java MadLiberator -variants <input file> <count> [threads] [seed] [output .jsonl file]
+ *
+ * Mutators:
+ * generate(int count, WordSampler sampler, Sink sink)
+ *
+ * Accessors:
+ * getTemplate(), getThreads(), toFiles(String inputfilename), toJsonLines(Writer out), toJsonLines(String outputfilename)
+ */
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class VariantGenerator {
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      System.out.println("Usage: java MadLiberator -variants <input file> <count> [threads] [seed] [output .jsonl file]");
+      return;
+    }
+    int count = Integer.parseInt(args[1]);
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (args.length > 2) {
+      threads = Integer.parseInt(args[2]);
+    }
+    WordSampler sampler = new WordSampler(Lexicon.getInstance());
+    if (args.length > 3) {
+      sampler = new WordSampler(Lexicon.getInstance(), Long.parseLong(args[3]));
+    }
+    Sink sink;
+    if (args.length > 4) {
+      sink = toJsonLines(args[4]);
+    } else {
+      sink = toFiles(args[0]);
+    }
+
+    long start = System.nanoTime();
+    LibDocument document;
+    TemplateCache cache = TemplateCache.fromProperties(Lexicon.getInstance());
+    if (cache != null) {
+      document = cache.loadDocument(args[0]);
+    } else {
+      document = LibDocument.load(args[0], Lexicon.getInstance());
+    }
+    VariantGenerator generator = new VariantGenerator(document.toTemplate(), threads);
+    int done = generator.generate(count, sampler, sink);
+    System.out.printf("Made %d of %d variants with %d threads in %.1f s.%n", done, count, threads,
+                      (System.nanoTime() - start) / 1e9);
+  }
+
+  //Where finished variants go. write() is called from the worker threads, one variant at a time each,
+  //possibly out of order, and fail() instead for a variant that could not be made (or whose write() threw);
+  //close() once on the calling thread when every variant is done.
+  public interface Sink {
+    void write(int variant, LibTemplate template, String[] assignment);
+    void fail(int variant);
+    void close();
+  }
+
+  private final LibTemplate template;
+  private final int threads;
+
+
+  //CONSTRUCTORS
+  public VariantGenerator(LibTemplate template, int threads) {
+    this.template = template;
+    this.threads = Math.max(threads, 1);
+  }
+
+
+  //MUTATORS
+  //Make count variants (numbered from 1) with words from sampler, hand each to sink as it is finished,
+  //and close sink. Returns how many were made; a variant that fails is reported and skipped.
+  public int generate(int count, WordSampler sampler, final Sink sink) {
+    final WordSampler[] own = new WordSampler[count];
+    for (int i = 0; i < count; i++) {
+      own[i] = sampler.split();                             //Split here, in order, not on the worker threads.
+    }
+    final AtomicInteger next = new AtomicInteger();
+    final AtomicInteger done = new AtomicInteger();
+    int workers = Math.min(threads, Math.max(count, 1));
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+    ArrayList<Future<?>> results = new ArrayList<Future<?>>();
+    for (int w = 0; w < workers; w++) {
+      results.add(pool.submit(new Runnable() {
+        public void run() {
+          int i;
+          while ((i = next.getAndIncrement()) < own.length) {
+            try {
+              sink.write(i + 1, template, template.draw(own[i]));
+              done.incrementAndGet();
+            }
+            catch (RuntimeException e) {                    //One bad variant should not stop the rest.
+              System.out.println("Variant " + (i + 1) + ": " + e.getMessage());
+              sink.fail(i + 1);
+            }
+            own[i] = null;                                  //Let its sampler go.
+          }
+        }
+      }));
+    }
+    pool.shutdown();
+    try {
+      for (Future<?> result : results) {
+        result.get();
+      }
+    }
+    catch (ExecutionException e) {
+      throw new RuntimeException("Variant worker failed: " + e.getCause().getMessage());
+    }
+    catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      sink.close();
+    }
+    return done.get();
+  }
+
+
+  //ACCESSORS
+  public LibTemplate getTemplate() {
+    return template;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  //A sink that writes variant n next to the input as "Mad <name>-n<extension>" ("Mad story-12.txt").
+  public static Sink toFiles(String inputfilename) {
+    File input = new File(inputfilename).getAbsoluteFile();
+    String name = input.getName();
+    int dot = name.lastIndexOf('.');
+    final String stem = dot > 0 ? name.substring(0, dot) : name;
+    final String extension = dot > 0 ? name.substring(dot) : "";
+    final File directory = input.getParentFile();
+    return new Sink() {
+      public void write(int variant, LibTemplate template, String[] assignment) {
+        File output = new File(directory, "Mad " + stem + "-" + variant + extension);
+        LibRenderer renderer = LibRenderer.toFile(output.getPath());
+        try {
+          template.render(assignment, renderer);
+        }
+        finally {
+          renderer.close();
+        }
+      }
+      public void fail(int variant) {
+      }
+      public void close() {
+      }
+    };
+  }
+
+  //A sink that writes every variant into one JSON Lines file, in variant order.
+  public static Sink toJsonLines(String outputfilename) {
+    try {
+      return toJsonLines(new BufferedWriter(new FileWriter(outputfilename)));
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to create " + outputfilename + ": " + e.getMessage());
+    }
+  }
+
+  //A sink that writes every variant to out as a line {"variant":n,"text":"..."}, in variant order, and
+  //closes out at the end. Variants are rendered on the worker threads; one that finishes early waits in
+  //memory for the ones before it, which with workers taking variants in order is never many. A variant that
+  //failed leaves no line, and the ones after it are written as soon as they are ready, not held back.
+  public static Sink toJsonLines(final Writer out) {
+    return new Sink() {
+      private final HashMap<Integer, String> waiting = new HashMap<Integer, String>();
+      private int next = 1;                                 //The variant to write out next.
+      private final String none = new String();             //Stands in for a failed variant in waiting.
+
+      public void write(int variant, LibTemplate template, String[] assignment) {
+        StringBuilder line = new StringBuilder(template.getTokenCount() * 8);
+        line.append("{\"variant\":").append(variant).append(",\"text\":\"");
+        appendEscaped(line, template.toString(assignment));
+        line.append("\"}\n");
+        synchronized (this) {
+          waiting.put(variant, line.toString());
+          flush();
+        }
+      }
+
+      public synchronized void fail(int variant) {
+        if (variant >= next && !waiting.containsKey(variant)) {  //Unless its line got out before the failure.
+          waiting.put(variant, none);
+        }
+        flush();
+      }
+
+      public synchronized void close() {
+        try {
+          for (Integer variant : new TreeSet<Integer>(waiting.keySet())) {  //After any never heard of again.
+            out.write(waiting.get(variant));
+          }
+          waiting.clear();
+          out.close();
+        }
+        catch (IOException e) {
+          throw new RuntimeException(e.getMessage());
+        }
+      }
+
+      //Write out every waiting line that is next in order, skipping failed variants.
+      private void flush() {
+        String ready;
+        try {
+          while ((ready = waiting.remove(next)) != null) {
+            out.write(ready);
+            next++;
+          }
+        }
+        catch (IOException e) {
+          throw new RuntimeException(e.getMessage());
+        }
+      }
+    };
+  }
+
+
+  //Append text to line as the inside of a JSON string.
+  private static void appendEscaped(StringBuilder line, String text) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"' || c == '\\') {
+        line.append('\\').append(c);
+      } else if (c == '\n') {
+        line.append("\\n");
+      } else if (c == '\r') {
+        line.append("\\r");
+      } else if (c == '\t') {
+        line.append("\\t");
+      } else if (c < 0x20) {
+        line.append(String.format("\\u%04x", (int) c));
+      } else {
+        line.append(c);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,291 @@
+/* Class: WordFilter
+ * Date: 10/18/26
+ * Description: Decides which dictionary words autofill may use and how often. Drawing uniformly from a whole
+ * list means the obscure entries, of which there are far more ("Aaronical", "abaxial", ...), fill most of
+ * the output. A filter can drop words by length, drop proper nouns (entries that start with a capital), drop
+ * a list of excluded words, and weight what is left, from a file of "word weight" lines (word frequencies,
+ * say) with every unlisted word getting the default weight. A weight of 0 drops a word too.
+ *
+ * The filter is applied once per part of speech and inflection, the first time WordSampler draws one, and
+ * the survivors are put in an AliasTable, so every draw after that is O(1) however much was filtered out,
+ * instead of drawing and redrawing until a word passes. Changing a setting throws the tables away. Once
+ * set up, a filter can be shared by any number of samplers and threads.
+ *
+ * Start the JVM with any of -Dmadlib.weights=<file>, -Dmadlib.weights.default=<weight>, -Dmadlib.exclude=<file>
+ * (one word per line), -Dmadlib.minlength=<n>, -Dmadlib.maxlength=<n> or -Dmadlib.propernouns=false to have
+ * every WordSampler use such a filter. Lexicon reads those properties once, the first time a sampler asks
+ * for them, and keeps the filter for every sampler drawing from it (see Lexicon.getFilter()).
+ *
+ * Mutators:
+ * setMinLength(int minLength), setMaxLength(int maxLength), setProperNouns(boolean properNouns),
+ * setDefaultWeight(double weight), exclude(String word), readExcluded(String filename), setWeight(String word, double weight),
+ * readWeights(String filename)
+ *
+ * Accessors:
+ * fromProperties(Lexicon lexicon), getTable(int part, int form), accepts(int part, int number), weightOf(int part, int number),
+ * getLexicon()
+ */
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+public class WordFilter {
+
+  public static final int ANY_FORM = MorphologyIndex.FORMS;  //Form number for a table of every inflection of a part of speech.
+
+  private final Lexicon lexicon;
+  private int minLength = 0;
+  private int maxLength = Integer.MAX_VALUE;
+  private boolean properNouns = true;             //Whether words starting with a capital may be drawn.
+  private double defaultWeight = 1;               //The weight of every word not given one.
+  private final BitSet[] excluded = new BitSet[3];          //[part] -> entry numbers that may not be drawn.
+  private final double[][] weights;                         //[part][number] -> weight given to the entry, or NaN for none.
+  private volatile AtomicReferenceArray<AliasTable> tables; //[part * (FORMS + 1) + form] -> table, once built.
+
+
+  //CONSTRUCTORS
+  //A filter that lets everything through with equal weight until told otherwise.
+  public WordFilter(Lexicon lexicon) {
+    this.lexicon = lexicon;
+    weights = new double[3][];
+    for (int part = 0; part < 3; part++) {
+      excluded[part] = new BitSet();
+    }
+    tables = new AtomicReferenceArray<AliasTable>(3 * (MorphologyIndex.FORMS + 1));
+  }
+
+  //A new filter as the madlib.* system properties describe, or null if none of them is set. Lexicon calls
+  //this once; everyone else should ask the Lexicon for its filter.
+  public static WordFilter fromProperties(Lexicon lexicon) {
+    String weightFile = System.getProperty("madlib.weights");
+    String defaultWeight = System.getProperty("madlib.weights.default");
+    String excludeFile = System.getProperty("madlib.exclude");
+    Integer minLength = Integer.getInteger("madlib.minlength");
+    Integer maxLength = Integer.getInteger("madlib.maxlength");
+    String properNouns = System.getProperty("madlib.propernouns");
+    if (weightFile == null && defaultWeight == null && excludeFile == null && minLength == null && maxLength == null
+        && properNouns == null) {
+      return null;
+    }
+    WordFilter filter = new WordFilter(lexicon);
+    if (minLength != null) {
+      filter.setMinLength(minLength);
+    }
+    if (maxLength != null) {
+      filter.setMaxLength(maxLength);
+    }
+    if (properNouns != null) {
+      filter.setProperNouns(Boolean.parseBoolean(properNouns));
+    }
+    if (defaultWeight != null) {
+      try {
+        filter.setDefaultWeight(Double.parseDouble(defaultWeight));
+      }
+      catch (NumberFormatException e) {
+        throw new RuntimeException("madlib.weights.default: \"" + defaultWeight + "\" is not a weight.");
+      }
+    }
+    if (excludeFile != null) {
+      filter.readExcluded(excludeFile);
+    }
+    if (weightFile != null) {
+      filter.readWeights(weightFile);
+    }
+    return filter;
+  }
+
+
+  //MUTATORS
+  //Only draw words at least this long.
+  public synchronized void setMinLength(int minLength) {
+    this.minLength = minLength;
+    reset();
+  }
+
+  //Only draw words at most this long.
+  public synchronized void setMaxLength(int maxLength) {
+    this.maxLength = maxLength;
+    reset();
+  }
+
+  //Whether words starting with a capital letter (names, places, ...) may be drawn.
+  public synchronized void setProperNouns(boolean properNouns) {
+    this.properNouns = properNouns;
+    reset();
+  }
+
+  //The weight of every word that has not been given one. 0 means only words given a weight are drawn.
+  public synchronized void setDefaultWeight(double weight) {
+    checkWeight(weight);
+    this.defaultWeight = weight;
+    reset();
+  }
+
+  //Never draw word, as any part of speech. When the exact spelling is not listed, every case variant of it
+  //is excluded (see PartOfSpeechTable.numbersOf).
+  public synchronized void exclude(String word) {
+    for (int part = 0; part < 3; part++) {
+      for (int number : lexicon.getTags().numbersOf(word, part)) {
+        excluded[part].set(number);
+      }
+    }
+    reset();
+  }
+
+  //Exclude every word in a file, one per line. Blank lines and lines starting with # are skipped.
+  public synchronized void readExcluded(String filename) {
+    FastInput in = new FastInput(filename);
+    try {
+      String line;
+      while ((line = in.nextLine()) != null) {
+        line = line.trim();
+        if (line.length() > 0 && line.charAt(0) != '#') {
+          exclude(line);
+        }
+      }
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  //Draw word, as any part of speech it is, in proportion to weight. Case is treated as exclude() treats it.
+  public synchronized void setWeight(String word, double weight) {
+    checkWeight(weight);
+    for (int part = 0; part < 3; part++) {
+      for (int number : lexicon.getTags().numbersOf(word, part)) {
+        if (weights[part] == null) {               //Most filters weigh nothing, so only make room when one does.
+          weights[part] = new double[lexicon.size(part)];
+          Arrays.fill(weights[part], Double.NaN);
+        }
+        weights[part][number] = weight;
+      }
+    }
+    reset();
+  }
+
+  //Read weights from a file of "word weight" lines, such as word frequencies. Blank lines and lines starting
+  //with # are skipped; later lines win over earlier ones for the same word.
+  public synchronized void readWeights(String filename) {
+    FastInput in = new FastInput(filename);
+    try {
+      String line;
+      int number = 0;
+      while ((line = in.nextLine()) != null) {
+        number++;
+        line = line.trim();
+        if (line.length() == 0 || line.charAt(0) == '#') {
+          continue;
+        }
+        int space = line.lastIndexOf(' ');
+        int tab = line.lastIndexOf('\t');
+        int split = Math.max(space, tab);
+        if (split < 0) {
+          throw new RuntimeException(filename + ":" + number + ": expected a word and a weight.");
+        }
+        double weight;
+        try {
+          weight = Double.parseDouble(line.substring(split + 1));
+        }
+        catch (NumberFormatException e) {
+          weight = -1;
+        }
+        if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+          throw new RuntimeException(filename + ":" + number + ": \"" + line.substring(split + 1) + "\" is not a weight.");
+        }
+        setWeight(line.substring(0, split).trim(), weight);
+      }
+    }
+    finally {
+      in.close();
+    }
+  }
+
+
+  //ACCESSORS
+  //The table to draw a word of a part of speech and inflection (or ANY_FORM) from. Empty if the filter lets
+  //none of them through.
+  public AliasTable getTable(int part, int form) {
+    int key = part * (MorphologyIndex.FORMS + 1) + form;
+    AtomicReferenceArray<AliasTable> current = tables;
+    AliasTable table = current.get(key);
+    if (table == null) {                          //First draw of this kind since the filter was last changed.
+      table = build(part, form);
+      if (!current.compareAndSet(key, null, table)) {
+        table = current.get(key);                 //Another thread got there first; use theirs.
+      }
+    }
+    return table;
+  }
+
+  //Whether an entry passes the length, proper noun and exclusion filters (its weight aside).
+  public synchronized boolean accepts(int part, int number) {
+    if (excluded[part].get(number)) {
+      return false;
+    }
+    BinaryDictionary dictionary = lexicon.getDictionary();
+    int length = dictionary.length(part, number);
+    if (length < minLength || length > maxLength) {
+      return false;
+    }
+    return properNouns || length == 0 || !Character.isUpperCase(dictionary.charAt(part, number, 0));
+  }
+
+  //The weight of an entry, given or default.
+  public synchronized double weightOf(int part, int number) {
+    if (weights[part] == null || Double.isNaN(weights[part][number])) {
+      return defaultWeight;
+    }
+    return weights[part][number];
+  }
+
+  public Lexicon getLexicon() {
+    return lexicon;
+  }
+
+
+  //Filter and weigh every entry of a part of speech and inflection into a table.
+  private synchronized AliasTable build(int part, int form) {
+    int[] candidates;
+    if (form == ANY_FORM) {
+      candidates = null;                          //Every entry number, without making an array of them.
+    } else {
+      candidates = lexicon.getMorphology().getPool(part, form);
+    }
+    int n = candidates == null ? lexicon.size(part) : candidates.length;
+    IntList kept = new IntList();
+    double[] keptWeights = new double[n];
+    boolean uniform = true;
+    for (int i = 0; i < n; i++) {
+      int number = candidates == null ? i : candidates[i];
+      if (!accepts(part, number)) {
+        continue;
+      }
+      double weight = weightOf(part, number);
+      if (weight == 0) {
+        continue;
+      }
+      if (weight != defaultWeight) {
+        uniform = false;
+      }
+      keptWeights[kept.size()] = weight;
+      kept.add(number);
+    }
+    if (uniform) {
+      return new AliasTable(kept.toArray());
+    }
+    return new AliasTable(kept.toArray(), Arrays.copyOf(keptWeights, kept.size()));
+  }
+
+  //Throw away every table, after a setting changes.
+  private synchronized void reset() {
+    tables = new AtomicReferenceArray<AliasTable>(3 * (MorphologyIndex.FORMS + 1));
+  }
+
+  private static void checkWeight(double weight) {
+    if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+      throw new RuntimeException("Bad weight " + weight + "; weights must be 0 or more.");
+    }
+  }
+
+}
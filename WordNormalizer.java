@@ -0,0 +1,77 @@
+/* Class: WordNormalizer
+ * Date: 10/18/26
+ * Description: The one place that decides how a token of the source text is matched against the
+ * dictionary and how a replacement is made to look like the token it replaces. A token's core is what is
+ * left after the punctuation around it (quotes, apostrophes, !, ? and the like) is set aside. Lookups
+ * first try the whole token, then its core, then its core with case folded (see PartOfSpeechTable), all
+ * working on character positions inside the token, so no lowercase or trimmed copy is made per token.
+ * When the replacement goes in, decorate() gives it the token's surrounding punctuation and capitalization:
+ * "Dog!" replaced by "cat" becomes "Cat!", and "NASA" replaced by "agency" becomes "AGENCY".
+ *
+ * Accessors:
+ * coreStart(CharSequence token), coreEnd(CharSequence token), fold(char c), decorate(String replacement, String original)
+ */
+
+public class WordNormalizer {
+
+  //Where the core of a token starts: the first letter or digit (token.length() if there is none).
+  public static int coreStart(CharSequence token) {
+    int start = 0;
+    while (start < token.length() && !Character.isLetterOrDigit(token.charAt(start))) {
+      start++;
+    }
+    return start;
+  }
+
+  //Where the core of a token ends: just past the last letter or digit.
+  public static int coreEnd(CharSequence token) {
+    int end = token.length();
+    while (end > 0 && !Character.isLetterOrDigit(token.charAt(end - 1))) {
+      end--;
+    }
+    return end;
+  }
+
+  //The case-folded form of a character, as used for lookups.
+  public static char fold(char c) {
+    return Character.toLowerCase(c);
+  }
+
+  //Dress a replacement up like the token it replaces: the same punctuation around it, all capitals if the
+  //token's core was all capitals, and a capital first letter if the token's was. Lowercase tokens leave
+  //the replacement alone, so proper nouns keep their capitals.
+  public static String decorate(String replacement, String original) {
+    int start = coreStart(original);
+    int end = coreEnd(original);
+    if (start >= end || replacement.length() == 0) {
+      return replacement;
+    }
+    String core = replacement;
+    if (isAllUpperCase(original, start, end)) {
+      core = replacement.toUpperCase();
+    } else if (Character.isUpperCase(original.charAt(start)) && !Character.isUpperCase(replacement.charAt(0))) {
+      core = Character.toUpperCase(replacement.charAt(0)) + replacement.substring(1);
+    }
+    if (start == 0 && end == original.length()) {
+      return core;
+    }
+    return original.substring(0, start) + core + original.substring(end);
+  }
+
+
+  //Whether a stretch of a token has at least two letters and no lowercase ones.
+  private static boolean isAllUpperCase(CharSequence token, int start, int end) {
+    int letters = 0;
+    for (int i = start; i < end; i++) {
+      char c = token.charAt(i);
+      if (Character.isLowerCase(c)) {
+        return false;
+      }
+      if (Character.isLetter(c)) {
+        letters++;
+      }
+    }
+    return letters > 1;
+  }
+
+}
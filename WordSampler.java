@@ -0,0 +1,169 @@
+/* Class: WordSampler
+ * Date: 10/18/26
+ * Description: Picks random replacement words out of a Lexicon for autofill. An unseeded sampler draws
+ * from ThreadLocalRandom, so one can be shared by every thread without locking or making a new Random per
+ * word. A seeded sampler draws from a SplittableRandom and gives the same words every time for the same
+ * seed; it belongs to one thread, and split() hands out independent seeded samplers for other threads.
+ * Words can be drawn from the whole list of a part of speech, or only from one inflection of it (plural
+ * nouns, past tense verbs, and so on; see MorphologyIndex) so a replacement matches the word it replaces.
+ * A WordFilter can narrow and weight what is drawn (no proper nouns, common words more often, ...); every
+ * sampler uses its Lexicon's (the one the madlib.* system properties describe, if any) unless given another with setFilter.
+ * Filtered draws go through the filter's AliasTables, so they cost the same as unfiltered ones.
+ * Nothing is printed unless setVerbose(true) is called, since console output is slow in a tight loop.
+ *
+ * Mutators:
+ * setVerbose(boolean verbose), setFilter(WordFilter filter), split()
+ *
+ * Accessors:
+ * draw(int part), drawForm(int part, int form), draw(int part, int count), drawAll(int[] parts),
+ * drawAll(int[] parts, int[] forms), isSeeded(), isVerbose(), getFilter()
+ */
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class WordSampler {
+
+  private final Lexicon lexicon;
+  private final SplittableRandom seeded;  //Null when drawing from ThreadLocalRandom.
+  private boolean verbose;
+  private WordFilter filter;              //Null to draw from every word equally.
+
+
+  //CONSTRUCTORS
+  //Unseeded: a different result every run, safe to share between threads.
+  public WordSampler(Lexicon lexicon) {
+    this(lexicon, null);
+  }
+  //Seeded: the same result for the same seed, for use on one thread at a time.
+  public WordSampler(Lexicon lexicon, long seed) {
+    this(lexicon, new SplittableRandom(seed));
+  }
+  private WordSampler(Lexicon lexicon, SplittableRandom seeded) {
+    this.lexicon = lexicon;
+    this.seeded = seeded;
+    this.filter = lexicon.getFilter();     //Read once by the Lexicon; after that, no lock and no files.
+  }
+
+
+  //MUTATORS
+  //Print each selection as it is made, like the interactive mode always used to.
+  public void setVerbose(boolean verbose) {
+    this.verbose = verbose;
+  }
+
+  //Draw only the words filter lets through, as often as it weighs them, or (with null) every word equally.
+  public void setFilter(WordFilter filter) {
+    this.filter = filter;
+  }
+
+  //A new sampler for another thread. Seeded samplers split off an independent, still reproducible stream.
+  public WordSampler split() {
+    WordSampler child;
+    if (seeded == null) {
+      child = new WordSampler(lexicon);
+    } else {
+      child = new WordSampler(lexicon, seeded.split());
+    }
+    child.setVerbose(verbose);
+    child.setFilter(filter);
+    return child;
+  }
+
+
+  //ACCESSORS
+  //One random word of the given part of speech (0 = noun, 1 = adjective, 2 = verb).
+  public String draw(int part) {
+    if (filter != null) {
+      AliasTable table = filter.getTable(part, WordFilter.ANY_FORM);
+      if (table.size() > 0) {
+        return show(lexicon.getWord(part, pick(table)));
+      }                                                   //The filter left nothing, so ignore it rather than fail.
+    }
+    return show(lexicon.getWord(part, nextInt(lexicon.size(part))));
+  }
+
+  //One random word of the given part of speech and inflection. If the dictionary has no word of that
+  //inflection, any word of the part of speech will do.
+  public String drawForm(int part, int form) {
+    if (filter != null) {
+      AliasTable table = filter.getTable(part, form);
+      if (table.size() == 0) {
+        return draw(part);
+      }
+      return show(lexicon.getWord(part, pick(table)));
+    }
+    int[] pool = lexicon.getMorphology().getPool(part, form);
+    if (pool.length == 0) {
+      return draw(part);
+    }
+    return show(lexicon.getWord(part, pool[nextInt(pool.length)]));
+  }
+
+  //Several random words of the same part of speech.
+  public String[] draw(int part, int count) {
+    String[] words = new String[count];
+    for (int i = 0; i < count; i++) {
+      words[i] = draw(part);
+    }
+    return words;
+  }
+
+  //One random word for each slot, where parts[i] is the part of speech slot i needs.
+  public String[] drawAll(int[] parts) {
+    String[] words = new String[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      words[i] = draw(parts[i]);
+    }
+    return words;
+  }
+
+  //One random word for each slot, where slot i needs part of speech parts[i] in inflection forms[i].
+  public String[] drawAll(int[] parts, int[] forms) {
+    String[] words = new String[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      words[i] = drawForm(parts[i], forms[i]);
+    }
+    return words;
+  }
+
+  public boolean isSeeded() {
+    return seeded != null;
+  }
+
+  public boolean isVerbose() {
+    return verbose;
+  }
+
+  public WordFilter getFilter() {
+    return filter;
+  }
+
+
+  //Print a selection if asked to, and pass it on.
+  private String show(String word) {
+    if (verbose) {
+      System.out.println("Selected word: " + word);  //Show what was selected.
+    }
+    return word;
+  }
+
+  //A random entry from a filter's table: a random column, and a coin flip if it is weighted.
+  private int pick(AliasTable table) {
+    int column = nextInt(table.size());
+    if (table.isUniform()) {
+      return table.pick(column, 0);
+    }
+    double coin = seeded == null ? ThreadLocalRandom.current().nextDouble() : seeded.nextDouble();
+    return table.pick(column, coin);
+  }
+
+  //A random number from 0 up to (but not including) bound.
+  private int nextInt(int bound) {
+    if (seeded == null) {
+      return ThreadLocalRandom.current().nextInt(bound);
+    }
+    return seeded.nextInt(bound);
+  }
+
+}
@@ -0,0 +1,185 @@
+/* Class: WordSuggester
+ * Date: 10/18/26
+ * Description: Finds dictionary words close to one the user typed, so the interactive mode can offer
+ * something better than "use it anyway / try again" when a word is not the part of speech it asked for.
+ * It needs no structure of its own. Every part of speech is already a sorted list in the mapped
+ * BinaryDictionary, so the words starting with a prefix are one binary search and a short scan away. The
+ * PartOfSpeechTable answers membership in a single probe, so the words one edit away (one letter dropped,
+ * swapped with its neighbour, changed or added) are found by trying each of them in turn on one reused
+ * buffer, and then ranked so that the likeliest ones (same first letter, an unfinished word, matching
+ * capitals, a swap or a missing letter rather than a wrong one) come first. That is a few hundred probes
+ * for a typical word, well under a millisecond, and no String is made except for the words it finds.
+ *
+ * Accessors:
+ * contains(CharSequence word, int part), complete(CharSequence prefix, int part, int limit),
+ * suggest(CharSequence word, int part, int limit), suggestions(CharSequence word, int part, int limit)
+ */
+
+import java.util.*;
+
+public class WordSuggester {
+
+  public static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz-'";  //Every character of the dictionaries, case folded.
+
+  private static final int SWAP = 0;          //Kinds of edit, from the likeliest slip of the fingers...
+  private static final int ADD = 1;           //(a letter left out of what was typed)
+  private static final int DROP = 2;          //(a letter too many)
+  private static final int CHANGE = 3;        //...to the least.
+
+  private final BinaryDictionary dictionary;
+  private final PartOfSpeechTable tags;
+
+
+  //CONSTRUCTORS
+  public WordSuggester(Lexicon lexicon) {
+    this.dictionary = lexicon.getDictionary();
+    this.tags = lexicon.getTags();
+  }
+
+
+  //ACCESSORS
+  //Whether word (in any case) is listed for the given part of speech.
+  public boolean contains(CharSequence word, int part) {
+    return (tags.lookup(word) & PartOfSpeechTable.bit(part)) != 0;
+  }
+
+  //Up to limit words of a part of speech that start with prefix, in dictionary order. A prefix with
+  //capitals also finds the lowercase words it could be the start of.
+  public String[] complete(CharSequence prefix, int part, int limit) {
+    LinkedHashSet<String> found = new LinkedHashSet<String>();
+    addCompletions(prefix, part, limit, found);
+    String lower = prefix.toString().toLowerCase();
+    if (!lower.contentEquals(prefix)) {
+      addCompletions(lower, part, limit, found);
+    }
+    return found.toArray(new String[found.size()]);
+  }
+
+  //Up to limit words of a part of speech one edit away from word: one character dropped, two neighbours
+  //swapped, one character changed or one added. Every such word is found first and then ranked (see rank()),
+  //so the best ones are kept rather than the first ones tried. The word itself is never suggested.
+  public String[] suggest(final CharSequence word, int part, int limit) {
+    final LinkedHashMap<String, Integer> found = new LinkedHashMap<String, Integer>();  //Entry -> its cheapest kind of edit.
+    int n = word.length();
+    StringBuilder candidate = new StringBuilder(n + 1);
+    for (int i = 0; i + 1 < n; i++) {                                   //Swap two neighbours.
+      candidate.setLength(0);
+      candidate.append(word);
+      candidate.setCharAt(i, word.charAt(i + 1));
+      candidate.setCharAt(i + 1, word.charAt(i));
+      check(candidate, word, part, SWAP, found);
+    }
+    for (int i = 0; i <= n; i++) {                                      //Add one.
+      candidate.setLength(0);
+      candidate.append(word);
+      candidate.insert(i, ' ');
+      for (int k = 0; k < ALPHABET.length(); k++) {
+        candidate.setCharAt(i, ALPHABET.charAt(k));
+        check(candidate, word, part, ADD, found);
+      }
+    }
+    for (int i = 0; i < n; i++) {                                       //Drop one.
+      candidate.setLength(0);
+      candidate.append(word, 0, i).append(word, i + 1, n);
+      check(candidate, word, part, DROP, found);
+    }
+    candidate.setLength(0);
+    candidate.append(word);
+    for (int i = 0; i < n; i++) {                                       //Change one.
+      char original = candidate.charAt(i);
+      for (int k = 0; k < ALPHABET.length(); k++) {
+        char c = ALPHABET.charAt(k);
+        if (c != WordNormalizer.fold(original)) {
+          candidate.setCharAt(i, c);
+          check(candidate, word, part, CHANGE, found);
+        }
+      }
+      candidate.setCharAt(i, original);
+    }
+    ArrayList<String> ranked = new ArrayList<String>(found.keySet());
+    Collections.sort(ranked, new Comparator<String>() {
+      public int compare(String a, String b) {
+        int cmp = Integer.compare(rank(a, word, found.get(a)), rank(b, word, found.get(b)));
+        return cmp != 0 ? cmp : a.compareTo(b);
+      }
+    });
+    return ranked.subList(0, Math.min(limit, ranked.size())).toArray(new String[0]);
+  }
+
+  //Up to limit words to offer for word: the ones a single edit away first, then ones it is the start of.
+  public String[] suggestions(CharSequence word, int part, int limit) {
+    LinkedHashSet<String> found = new LinkedHashSet<String>(Arrays.asList(suggest(word, part, limit)));
+    if (found.size() < limit) {
+      String[] more = complete(word, part, limit + 1);                  //One extra, in case word itself is one.
+      for (int i = 0; i < more.length && found.size() < limit; i++) {
+        if (!more[i].contentEquals(word)) {
+          found.add(more[i]);
+        }
+      }
+    }
+    return found.toArray(new String[found.size()]);
+  }
+
+
+  //Add candidate's dictionary entry to found, with the kind of edit that made it, if it is listed for part
+  //and is not just word again.
+  private void check(CharSequence candidate, CharSequence word, int part, int kind, LinkedHashMap<String, Integer> found) {
+    int slot = tags.slotOf(candidate, part);
+    if (slot < 0) {
+      return;
+    }
+    int number = tags.numberOf(slot, part);
+    if (number < 0) {
+      return;
+    }
+    String entry = dictionary.getWord(part, number);
+    if (!entry.equalsIgnoreCase(word.toString()) && !found.containsKey(entry)) {
+      found.put(entry, kind);                                            //Edits are tried cheapest kind first.
+    }
+  }
+
+  //How good a suggestion entry is for word, lower being better. In order of importance: it starts with the
+  //same letter (people rarely get the first one wrong), one is the start of the other (an unfinished word),
+  //its capitals agree with word's (no proper nouns for a lowercase word, and the reverse), and the kind of edit.
+  private static int rank(String entry, CharSequence word, int kind) {
+    int score = kind;
+    if (word.length() == 0 || WordNormalizer.fold(entry.charAt(0)) != WordNormalizer.fold(word.charAt(0))) {
+      score += 64;
+    }
+    if (!startsWithFolded(entry, word) && !startsWithFolded(word, entry)) {
+      score += 32;
+    }
+    if (word.length() > 0 && Character.isUpperCase(entry.charAt(0)) != Character.isUpperCase(word.charAt(0))) {
+      score += 16;
+    }
+    return score;
+  }
+
+  //Whether text begins with prefix, ignoring case.
+  private static boolean startsWithFolded(CharSequence text, CharSequence prefix) {
+    if (prefix.length() > text.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (WordNormalizer.fold(text.charAt(i)) != WordNormalizer.fold(prefix.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  //Add up to limit words of a part of speech starting with prefix (exactly as given) to found.
+  private void addCompletions(CharSequence prefix, int part, int limit, LinkedHashSet<String> found) {
+    int number = dictionary.find(part, prefix);
+    if (number < 0) {
+      number = -number - 1;                                              //Where prefix would go: the first word after it.
+    }
+    for (; number < dictionary.size(part) && found.size() < limit; number++) {
+      if (!dictionary.startsWith(part, number, prefix)) {
+        break;
+      }
+      found.add(dictionary.getWord(part, number));
+    }
+  }
+
+}